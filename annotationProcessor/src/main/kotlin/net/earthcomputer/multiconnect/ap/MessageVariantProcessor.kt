@@ -387,7 +387,8 @@ object MessageVariantProcessor {
             type.getAnnotation(Sendable::class)?.from?.toList(),
             type.getAnnotation(Sendable::class)?.fromLatest ?: false,
             type.hasAnnotation(ExplicitConstructible::class),
-            messageVariant.tailrec
+            messageVariant.tailrec,
+            type.hasAnnotation(OrderInsensitive::class)
         )
         jsonFile.openWriter().use { writer ->
             writer.write(JSON.encodeToString(messageVariantType))
@@ -22,5 +22,6 @@ class MessageVariantType @OptIn(ExperimentalSerializationApi::class) constructor
     val sendableFromLatest: Boolean,
     val explicitConstructible: Boolean,
     val tailrec: Boolean = false,
+    val orderInsensitive: Boolean = false,
     @EncodeDefault(EncodeDefault.Mode.ALWAYS) val type: String = "messageVariant"
 )
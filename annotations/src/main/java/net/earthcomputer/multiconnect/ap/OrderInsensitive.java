@@ -0,0 +1,16 @@
+package net.earthcomputer.multiconnect.ap;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Signifies that this packet may be delivered out of order relative to other packets. If its translation also has no
+ * read or write dependencies, threaded translation delivers it as soon as it has been translated, rather than waiting
+ * for the packets before it.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface OrderInsensitive {
+}
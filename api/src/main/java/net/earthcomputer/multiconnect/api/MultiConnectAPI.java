@@ -11,6 +11,7 @@ import net.minecraft.util.registry.RegistryKey;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -189,6 +190,17 @@ public class MultiConnectAPI {
         return key.isOf(registry.getKey()) && registry.getOrEmpty(key.getValue()).isPresent();
     }
 
+    /**
+     * Returns a predicate which tests whether the given registry contains a value on the server. The predicate is
+     * equivalent to {@link #doesServerKnow(Registry, Object)}, but is much cheaper to test, so should be preferred when
+     * filtering large parts of a registry, for example when building item lists. It reflects the server connected to
+     * at the time of calling, so should not be kept across connections.
+     */
+    @ThreadSafe
+    public <T> Predicate<T> getServerKnownPredicate(Registry<T> registry) {
+        return value -> doesServerKnow(registry, value);
+    }
+
     //region deprecated methods
 
     /**
@@ -0,0 +1,40 @@
+package net.earthcomputer.multiconnect.benchmark;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.impl.launch.knot.Knot;
+import net.fabricmc.loader.impl.launch.knot.KnotClassLoaderInterface;
+
+/**
+ * Boots the game headlessly inside Knot, the same way {@code TestingExtension} does for the unit tests.
+ */
+public final class BenchmarkEnvironment {
+    private static TranslationDriver driver;
+
+    private BenchmarkEnvironment() {}
+
+    public static synchronized TranslationDriver getDriver() {
+        if (driver != null) {
+            return driver;
+        }
+
+        System.setProperty("fabric.development", "true");
+        System.setProperty("fabric.loader.entrypoint", "net.earthcomputer.multiconnect.TestingDummyMain");
+        System.setProperty("fabric.loader.useCompatibilityClassLoader", "true");
+        System.setProperty("fabric.debug.disableClassPathIsolation", "true");
+        System.setProperty("multiconnect.unitTestMode", "true");
+        Knot knot = new Knot(EnvType.CLIENT);
+        knot.init(new String[0]);
+        KnotClassLoaderInterface knotClassLoader = knot.getClassLoader();
+        knotClassLoader.addClassLoaderExclusion("net.earthcomputer.multiconnect.benchmark.BenchmarkEnvironment");
+        knotClassLoader.addClassLoaderExclusion("net.earthcomputer.multiconnect.benchmark.TranslationDriver");
+        Thread.currentThread().setContextClassLoader(knotClassLoader.getClassLoader());
+
+        try {
+            Class<?> implClass = Class.forName("net.earthcomputer.multiconnect.benchmark.KnotTranslationDriver", true, knotClassLoader.getClassLoader());
+            driver = (TranslationDriver) implClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Failed to create translation driver", e);
+        }
+        return driver;
+    }
+}
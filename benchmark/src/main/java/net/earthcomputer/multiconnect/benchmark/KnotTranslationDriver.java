@@ -0,0 +1,124 @@
+package net.earthcomputer.multiconnect.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.earthcomputer.multiconnect.TestUtil;
+import net.earthcomputer.multiconnect.impl.ConnectionInfo;
+import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
+import net.earthcomputer.multiconnect.protocols.ProtocolRegistry;
+import net.earthcomputer.multiconnect.protocols.generic.TypedMap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.util.registry.Registry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class KnotTranslationDriver implements TranslationDriver {
+    static {
+        TestUtil.callBootstrap();
+    }
+
+    private final List<ByteBuf> outBufs = new ArrayList<>(1);
+
+    @Override
+    public void connect(int protocol) {
+        ConnectionInfo.protocolVersion = protocol;
+        ConnectionInfo.protocol = ProtocolRegistry.get(protocol);
+        ConnectionInfo.protocol.setup(false);
+        // there is no game join packet in the recorded packets
+        PacketSystem.getCurrentContext().setUpOverworld();
+    }
+
+    @Override
+    public void disconnect() {
+        ConnectionInfo.protocol.disable();
+        ConnectionInfo.protocolVersion = SharedConstants.getGameVersion().getProtocolVersion();
+        ConnectionInfo.protocol = ProtocolRegistry.get(ConnectionInfo.protocolVersion);
+        ConnectionInfo.protocol.setup(false);
+    }
+
+    @Override
+    public int translateClientbound(byte[] packet) {
+        return translate(packet, true);
+    }
+
+    @Override
+    public int translateServerbound(byte[] packet) {
+        return translate(packet, false);
+    }
+
+    private int translate(byte[] packet, boolean clientbound) {
+        return translate(PacketSystem.getCurrentContext(), outBufs, packet, clientbound);
+    }
+
+    private static int translate(TranslationContext context, List<ByteBuf> outBufs, byte[] packet, boolean clientbound) {
+        ByteBuf buf = Unpooled.wrappedBuffer(packet);
+        try {
+            var result = clientbound
+                    ? PacketSystem.Internals.translateSPacket(context, buf)
+                    : PacketSystem.Internals.translateCPacket(context, buf);
+            result.sender().send(buf, outBufs, null, context.getGlobalData(), new TypedMap());
+            int outputSize = 0;
+            for (ByteBuf outBuf : outBufs) {
+                outputSize += outBuf.readableBytes();
+                outBuf.release();
+            }
+            return outputSize;
+        } finally {
+            outBufs.clear();
+            buf.release();
+        }
+    }
+
+    @Override
+    public int serverBlockStateIdToClient(int serverBlockStateId) {
+        return PacketSystem.serverBlockStateIdToClient(serverBlockStateId);
+    }
+
+    @Override
+    public int serverItemIdToClient(int serverItemId) {
+        return PacketSystem.serverRawIdToClient(Registry.ITEM, serverItemId);
+    }
+
+    @Override
+    public int getNumClientBlockStates() {
+        return Block.STATE_IDS.size();
+    }
+
+    @Override
+    public int getNumClientItems() {
+        return Registry.ITEM.size();
+    }
+
+    @Override
+    public Connection openConnection() {
+        // no executors, each connection translates on the thread driving it, like a channel on its own event loop
+        return new KnotConnection(new TranslationContext(ConnectionInfo.protocolVersion, ConnectionInfo.protocol, null, null));
+    }
+
+    private static final class KnotConnection implements Connection {
+        private final TranslationContext context;
+        private final List<ByteBuf> outBufs = new ArrayList<>(1);
+
+        KnotConnection(TranslationContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public int translateClientbound(byte[] packet) {
+            return translate(context, outBufs, packet, true);
+        }
+
+        @Override
+        public int translateServerbound(byte[] packet) {
+            return translate(context, outBufs, packet, false);
+        }
+
+        @Override
+        public void close() {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package net.earthcomputer.multiconnect.benchmark;
+
+import net.earthcomputer.multiconnect.impl.PacketCapture;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives many translated connections at once, each on its own thread with its own translation context, and reports
+ * aggregate throughput, translation CPU time and heap usage per connection. Each connection plays the part of a bot
+ * client by replaying a packet capture in a loop: the clientbound frames are what the server sends it (chunks, chat,
+ * entity movement) and the serverbound frames are its own movement and chat.
+ * Usage: {@code LoadTest <capture file> <connections> [seconds] [realtime]}
+ *
+ * <p>With {@code realtime}, each connection waits between frames as long as the capture did, so the load resembles a
+ * fleet of real bots and CPU time per connection is the interesting figure. Without it, the frames are translated as
+ * fast as possible, which measures the maximum throughput.
+ */
+public final class LoadTest {
+    private LoadTest() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: LoadTest <capture file> <connections> [seconds] [realtime]");
+            System.exit(1);
+        }
+        Path file = Path.of(args[0]).toAbsolutePath();
+        int numConnections = Integer.parseInt(args[1]);
+        long durationNanos = (args.length > 2 ? Long.parseLong(args[2]) : 30) * 1_000_000_000L;
+        boolean realtime = args.length > 3 && "realtime".equals(args[3]);
+
+        PacketCapture.Capture capture = PacketCapture.read(file);
+        System.out.printf("Loaded %d frames for protocol %d, running %d connections for %ds%s%n",
+                capture.frames().size(),
+                capture.protocol(),
+                numConnections,
+                durationNanos / 1_000_000_000L,
+                realtime ? " in real time" : "");
+
+        TranslationDriver driver = BenchmarkEnvironment.getDriver();
+        driver.connect(capture.protocol());
+
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        System.gc();
+        long heapBefore = memoryBean.getHeapMemoryUsage().getUsed();
+
+        List<TranslationDriver.Connection> connections = new ArrayList<>(numConnections);
+        for (int i = 0; i < numConnections; i++) {
+            connections.add(driver.openConnection());
+        }
+
+        AtomicLong packets = new AtomicLong();
+        AtomicLong bytesIn = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong attempts = new AtomicLong();
+        AtomicLong cpuNanos = new AtomicLong();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(numConnections);
+
+        for (int i = 0; i < numConnections; i++) {
+            TranslationDriver.Connection connection = connections.get(i);
+            Thread thread = new Thread(() -> {
+                try {
+                    startLatch.await();
+                    long cpuStart = threadBean.getCurrentThreadCpuTime();
+                    long deadline = System.nanoTime() + durationNanos;
+                    long localPackets = 0;
+                    long localBytes = 0;
+                    long localErrors = 0;
+                    while (System.nanoTime() < deadline) {
+                        long replayStart = System.nanoTime();
+                        for (PacketCapture.Frame frame : capture.frames()) {
+                            if (realtime) {
+                                long delay = replayStart + frame.timeNanos() - System.nanoTime();
+                                if (delay > 0) {
+                                    LockSupport.parkNanos(delay);
+                                }
+                            }
+                            if (System.nanoTime() >= deadline) {
+                                break;
+                            }
+                            try {
+                                if (frame.clientbound()) {
+                                    connection.translateClientbound(frame.data());
+                                } else {
+                                    connection.translateServerbound(frame.data());
+                                }
+                            } catch (Throwable e) {
+                                localErrors++;
+                                if (errors.getAndIncrement() == 0) {
+                                    e.printStackTrace();
+                                }
+                                continue;
+                            }
+                            localPackets++;
+                            localBytes += frame.data().length;
+                        }
+                    }
+                    cpuNanos.addAndGet(threadBean.getCurrentThreadCpuTime() - cpuStart);
+                    attempts.addAndGet(localPackets + localErrors);
+                    packets.addAndGet(localPackets);
+                    bytesIn.addAndGet(localBytes);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            }, "multiconnect load test #" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await();
+        long elapsed = System.nanoTime() - start;
+
+        System.gc();
+        long heapAfter = memoryBean.getHeapMemoryUsage().getUsed();
+        for (TranslationDriver.Connection connection : connections) {
+            connection.close();
+        }
+        driver.disconnect();
+
+        double seconds = elapsed / 1_000_000_000.0;
+        System.out.printf("%d connections: %d packets translated in %.1fs (%.0f packets/s, %.1f MB/s in)%n",
+                numConnections,
+                packets.get(),
+                seconds,
+                packets.get() / seconds,
+                bytesIn.get() / seconds / 1_000_000);
+        System.out.printf("%d errors (%.2f%% of attempted translations)%n",
+                errors.get(),
+                attempts.get() == 0 ? 0.0 : errors.get() * 100.0 / attempts.get());
+        System.out.printf("Translation CPU time: %.1fms per connection per second, %.2fµs per attempted packet%n",
+                cpuNanos.get() / 1_000_000.0 / numConnections / seconds,
+                attempts.get() == 0 ? 0.0 : cpuNanos.get() / 1000.0 / attempts.get());
+        System.out.printf("Retained heap: %.1f KB per connection%n",
+                Math.max(0, heapAfter - heapBefore) / 1024.0 / numConnections);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,61 @@
+package net.earthcomputer.multiconnect.benchmark;
+
+import net.earthcomputer.multiconnect.impl.PacketCapture;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Drives a packet capture through the translators as fast as possible and reports the throughput.
+ * Usage: {@code PacketReplayer <capture file> [iterations]}
+ */
+public final class PacketReplayer {
+    private PacketReplayer() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PacketReplayer <capture file> [iterations]");
+            System.exit(1);
+        }
+        Path file = Path.of(args[0]).toAbsolutePath();
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        PacketCapture.Capture capture = PacketCapture.read(file);
+        long totalBytes = 0;
+        for (PacketCapture.Frame frame : capture.frames()) {
+            totalBytes += frame.data().length;
+        }
+        System.out.printf("Loaded %d frames (%d bytes) for protocol %d%n", capture.frames().size(), totalBytes, capture.protocol());
+
+        TranslationDriver driver = BenchmarkEnvironment.getDriver();
+        for (int iteration = 1; iteration <= iterations; iteration++) {
+            // reconnect for each iteration so that the replay starts from a fresh connection state
+            driver.connect(capture.protocol());
+            int errors = 0;
+            long bytesOut = 0;
+            long start = System.nanoTime();
+            for (PacketCapture.Frame frame : capture.frames()) {
+                try {
+                    bytesOut += frame.clientbound() ? driver.translateClientbound(frame.data()) : driver.translateServerbound(frame.data());
+                } catch (Throwable e) {
+                    if (errors++ == 0) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            driver.disconnect();
+
+            double seconds = elapsed / 1_000_000_000.0;
+            System.out.printf("Iteration %d: %d packets in %.1fms (%.0f packets/s, %.1f MB/s in, %d bytes out), %d errors%n",
+                    iteration,
+                    capture.frames().size(),
+                    elapsed / 1_000_000.0,
+                    capture.frames().size() / seconds,
+                    totalBytes / seconds / 1_000_000,
+                    bytesOut,
+                    errors);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,72 @@
+package net.earthcomputer.multiconnect.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the registry remap functions over a chunk section's worth of synthetic IDs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemapBenchmark {
+    private static final int NUM_IDS = 4096;
+
+    @Param({"759", "758", "756", "754", "578", "498", "404", "340"})
+    public int protocol;
+
+    private TranslationDriver driver;
+    private final int[] blockStateIds = new int[NUM_IDS];
+    private final int[] itemIds = new int[NUM_IDS];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        driver = BenchmarkEnvironment.getDriver();
+        driver.connect(protocol);
+        Random rand = new Random(0);
+        for (int i = 0; i < NUM_IDS; i++) {
+            blockStateIds[i] = rand.nextInt(driver.getNumClientBlockStates());
+            itemIds[i] = rand.nextInt(driver.getNumClientItems());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver.disconnect();
+    }
+
+    @Benchmark
+    public int remapBlockStates() {
+        int result = 0;
+        for (int id : blockStateIds) {
+            result += driver.serverBlockStateIdToClient(id);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int remapItems() {
+        int result = 0;
+        for (int id : itemIds) {
+            result += driver.serverItemIdToClient(id);
+        }
+        return result;
+    }
+}
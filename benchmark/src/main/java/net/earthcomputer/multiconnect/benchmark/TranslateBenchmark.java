@@ -0,0 +1,79 @@
+package net.earthcomputer.multiconnect.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the clientbound translation of recorded packets. The packets are read from
+ * {@code <multiconnect.benchmark.packetDir>/<protocol>.txt}, which contains one base64-encoded packet (packet ID
+ * followed by the packet data) per line. Lines starting with {@code #} are ignored. The packets are translated in order,
+ * with the overworld set up as the dimension in place of a game join packet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslateBenchmark {
+    // the protocols with recorded packets in the packets directory
+    @Param({"340", "758"})
+    public int protocol;
+
+    private TranslationDriver driver;
+    private List<byte[]> packets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String packetDir = System.getProperty("multiconnect.benchmark.packetDir", "packets");
+        Path file = Path.of(packetDir, protocol + ".txt");
+        try {
+            packets = Files.readAllLines(file).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(line -> Base64.getDecoder().decode(line))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read recorded packets from " + file.toAbsolutePath(), e);
+        }
+        if (packets.isEmpty()) {
+            throw new IllegalStateException("No recorded packets in " + file.toAbsolutePath());
+        }
+
+        driver = BenchmarkEnvironment.getDriver();
+        driver.connect(protocol);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver.disconnect();
+    }
+
+    @Benchmark
+    public int translatePackets() {
+        int result = 0;
+        for (byte[] packet : packets) {
+            result += driver.translateClientbound(packet);
+        }
+        return result;
+    }
+}
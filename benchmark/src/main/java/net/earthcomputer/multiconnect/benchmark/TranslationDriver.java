@@ -0,0 +1,45 @@
+package net.earthcomputer.multiconnect.benchmark;
+
+/**
+ * The benchmarks' view of multiconnect. Implemented by {@link KnotTranslationDriver}, which is loaded through Knot so
+ * that mixins are applied, while this interface is shared with the benchmark classes on the app class loader.
+ */
+public interface TranslationDriver {
+    void connect(int protocol);
+
+    void disconnect();
+
+    /**
+     * Translates a clientbound packet (packet ID followed by the packet data) from the connected protocol to the
+     * latest, returning the number of bytes output
+     */
+    int translateClientbound(byte[] packet);
+
+    /**
+     * Translates a serverbound packet (packet ID followed by the packet data) from the latest protocol to the connected
+     * protocol, returning the number of bytes output
+     */
+    int translateServerbound(byte[] packet);
+
+    int serverBlockStateIdToClient(int serverBlockStateId);
+
+    int serverItemIdToClient(int serverItemId);
+
+    int getNumClientBlockStates();
+
+    int getNumClientItems();
+
+    /**
+     * Opens a connection to the connected protocol with a translation context of its own, so that several connections
+     * can translate in parallel, each on its own thread
+     */
+    Connection openConnection();
+
+    interface Connection {
+        int translateClientbound(byte[] packet);
+
+        int translateServerbound(byte[] packet);
+
+        void close();
+    }
+}
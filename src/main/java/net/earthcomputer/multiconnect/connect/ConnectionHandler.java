@@ -1,6 +1,8 @@
 package net.earthcomputer.multiconnect.connect;
 
 import net.earthcomputer.multiconnect.impl.ConnectionInfo;
+import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslatorWarmUp;
 import net.earthcomputer.multiconnect.mixin.connect.HandshakePacketAccessor;
 import net.earthcomputer.multiconnect.protocols.ProtocolRegistry;
 import net.minecraft.SharedConstants;
@@ -16,6 +18,7 @@ import net.minecraft.network.packet.c2s.handshake.HandshakeC2SPacket;
 import net.minecraft.network.packet.c2s.query.QueryRequestC2SPacket;
 import net.minecraft.screen.ScreenTexts;
 import net.minecraft.text.Text;
+import net.minecraft.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -26,7 +29,40 @@ public class ConnectionHandler {
 
     private static final Logger LOGGER = LogManager.getLogger("multiconnect");
 
+    private static final boolean PRELOAD_PROTOCOL = Boolean.parseBoolean(System.getProperty("multiconnect.preloadProtocol", "true"));
+
     public static boolean preConnect(InetSocketAddress addr, ServerAddress serverAddress, String addressField) {
+        if (!detectProtocol(addr, serverAddress, addressField)) {
+            return false;
+        }
+        if (PRELOAD_PROTOCOL) {
+            preloadProtocol(ConnectionInfo.protocolVersion);
+        }
+        if (TranslatorWarmUp.isEnabled()) {
+            TranslatorWarmUp.start(ConnectionInfo.protocolVersion);
+        }
+        return true;
+    }
+
+    /**
+     * Loads the classes of the given protocol in the background while the connection is being established, so that
+     * the handshake and the first packets don't have to wait for them
+     */
+    private static void preloadProtocol(int protocol) {
+        if (!ConnectionMode.isSupportedProtocol(protocol)) {
+            return;
+        }
+        Util.getMainWorkerExecutor().execute(() -> {
+            try {
+                ProtocolRegistry.get(protocol);
+                PacketSystem.preloadProtocol(protocol);
+            } catch (Throwable e) {
+                LOGGER.error("Failed to preload protocol " + protocol, e);
+            }
+        });
+    }
+
+    private static boolean detectProtocol(InetSocketAddress addr, ServerAddress serverAddress, String addressField) {
         // Hypixel has their own closed-source connection proxy and closed-source anti-cheat.
         // Users were getting banned for odd reasons. Their maps are designed to have fair play between clients on any
         // version, so we force the current protocol version here to disable any kind of bridge, in the hope that users
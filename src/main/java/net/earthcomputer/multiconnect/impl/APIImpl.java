@@ -11,6 +11,7 @@ import net.minecraft.util.registry.RegistryKey;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Predicate;
 
 public class APIImpl extends MultiConnectAPI {
     @Override
@@ -98,6 +99,11 @@ public class APIImpl extends MultiConnectAPI {
         return PacketSystem.doesServerKnow(registry, key);
     }
 
+    @Override
+    public <T> Predicate<T> getServerKnownPredicate(Registry<T> registry) {
+        return PacketSystem.getServerKnownPredicate(registry);
+    }
+
     //region deprecated stuff
 
     @Deprecated
@@ -12,6 +12,8 @@ public class ConfigScreen extends Screen {
     private static final Text TITLE = Text.translatable("multiconnect.config.title");
     private static final Text ALLOW_OLD_UNSIGNED_CHAT = Text.translatable("multiconnect.config.allowOldUnsignedChat");
     private static final Text ALLOW_OLD_UNSIGNED_CHAT_TOOLTIP = Text.translatable("multiconnect.config.allowOldUnsignedChat.tooltip");
+    private static final Text WARM_UP_TRANSLATORS = Text.translatable("multiconnect.config.warmUpTranslators");
+    private static final Text WARM_UP_TRANSLATORS_TOOLTIP = Text.translatable("multiconnect.config.warmUpTranslators.tooltip");
 
     private final Screen parent;
 
@@ -25,6 +27,9 @@ public class ConfigScreen extends Screen {
         addDrawableChild(CyclingButtonWidget.onOffBuilder(MulticonnectConfig.INSTANCE.allowOldUnsignedChat == Boolean.TRUE)
                 .tooltip(SimpleOption.<Boolean>constantTooltip(ALLOW_OLD_UNSIGNED_CHAT_TOOLTIP).apply(client))
                 .build(width / 2, 50, 100, 20, ALLOW_OLD_UNSIGNED_CHAT, (button, value) -> MulticonnectConfig.INSTANCE.allowOldUnsignedChat = value));
+        addDrawableChild(CyclingButtonWidget.onOffBuilder(MulticonnectConfig.INSTANCE.warmUpTranslators != Boolean.FALSE)
+                .tooltip(SimpleOption.<Boolean>constantTooltip(WARM_UP_TRANSLATORS_TOOLTIP).apply(client))
+                .build(width / 2, 80, 100, 20, WARM_UP_TRANSLATORS, (button, value) -> MulticonnectConfig.INSTANCE.warmUpTranslators = value));
         addDrawableChild(new ButtonWidget(20, height - 50, 100, 20, ScreenTexts.DONE, button -> close()));
     }
 
@@ -3,6 +3,7 @@ package net.earthcomputer.multiconnect.impl;
 import com.google.common.collect.ImmutableMap;
 import com.mojang.datafixers.TypeRewriteRule;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
@@ -240,15 +241,8 @@ public class DebugUtils {
     }
 
     public static byte[] getBufData(ByteBuf buf) {
-        if (buf.hasArray()) {
-            return buf.array();
-        }
-        int prevReaderIndex = buf.readerIndex();
-        buf.readerIndex(0);
-        byte[] array = new byte[buf.readableBytes()];
-        buf.readBytes(array);
-        buf.readerIndex(prevReaderIndex);
-        return array;
+        // the buffer may be a slice of a larger (possibly pooled) buffer, so its backing array can't be used directly
+        return ByteBufUtil.getBytes(buf, 0, buf.writerIndex());
     }
 
     public static void logPacketError(ByteBuf data, String... extraLines) {
@@ -482,6 +476,7 @@ public class DebugUtils {
     }
 
     public static void onDebugKey() {
+        TranslationMetrics.dump();
     }
 
     public static String dfuToString(Object dfuType) {
@@ -0,0 +1,54 @@
+package net.earthcomputer.multiconnect.impl;
+
+import io.netty.buffer.ByteBuf;
+import net.earthcomputer.multiconnect.protocols.generic.TypedMap;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.util.registry.RegistryKey;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implemented by the generated {@code Protocol_x_y} classes, so that the packet system can call into them directly
+ * rather than through reflection.
+ */
+public interface GeneratedProtocol {
+    PacketIntrinsics.StartSendPacketResult translateSPacket(ByteBuf buf);
+
+    PacketIntrinsics.StartSendPacketResult translateCPacket(ByteBuf buf);
+
+    void sendToClient(
+            Object packet,
+            List<ByteBuf> outBufs,
+            ClientPlayNetworkHandler networkHandler,
+            Map<Class<?>, Object> globalData,
+            TypedMap userData
+    );
+
+    void sendToServer(
+            Object packet,
+            int fromProtocol,
+            List<ByteBuf> outBufs,
+            ClientPlayNetworkHandler networkHandler,
+            Map<Class<?>, Object> globalData,
+            TypedMap userData
+    );
+
+    boolean doesServerKnow(RegistryKey<? extends Registry<?>> registry, int newId);
+
+    boolean doesServerKnowMulticonnect(RegistryKey<?> value);
+
+    int remapCInt(RegistryKey<? extends Registry<?>> registry, int value);
+
+    int remapSInt(RegistryKey<? extends Registry<?>> registry, int value);
+
+    Identifier remapCIdentifier(RegistryKey<? extends Registry<?>> registry, Identifier value);
+
+    Identifier remapSIdentifier(RegistryKey<? extends Registry<?>> registry, Identifier value);
+
+    int serverBlockStateIdToClient(int value);
+
+    int clientBlockStateIdToServer(int value);
+}
@@ -22,6 +22,9 @@ public class MulticonnectConfig {
     @Nullable
     public Boolean allowOldUnsignedChat;
 
+    @Nullable
+    public Boolean warmUpTranslators;
+
     private static MulticonnectConfig load() {
         MulticonnectConfig config = null;
         Path configFile = configFile();
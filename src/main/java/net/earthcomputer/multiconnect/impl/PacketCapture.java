@@ -0,0 +1,158 @@
+package net.earthcomputer.multiconnect.impl;
+
+import io.netty.buffer.ByteBuf;
+import net.fabricmc.loader.api.FabricLoader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Full-session capture of the raw packets passing through the translators of a connection, before translation. Enabled
+ * with {@code -Dmulticonnect.capturePackets=true}, which makes each {@link TranslationContext} write its own file to the
+ * {@code multiconnect-captures} folder in the game directory. The captures can be replayed offline by the replayer in
+ * the benchmark project.
+ *
+ * <p>The file format is a header of {@code int magic, byte version, int protocol, long startTimeMillis}, followed by
+ * frames of {@code byte direction, varlong nanosSincePreviousFrame, varlong length, byte[length] data} until the end of
+ * the file. The direction is {@link #CLIENTBOUND} or {@link #SERVERBOUND}, and the data starts with the packet ID.
+ */
+public final class PacketCapture {
+    private static final Logger LOGGER = LogManager.getLogger("multiconnect");
+
+    public static final boolean ENABLED = Boolean.getBoolean("multiconnect.capturePackets");
+
+    public static final int MAGIC = 0x4d434150; // MCAP
+    public static final int VERSION = 1;
+    public static final byte CLIENTBOUND = 0;
+    public static final byte SERVERBOUND = 1;
+
+    // distinguishes the files of connections opened in the same second
+    private static final AtomicInteger nextCaptureId = new AtomicInteger();
+
+    private final int protocolVersion;
+    @Nullable
+    private DataOutputStream output;
+    private long lastFrameTime;
+    private boolean failed;
+
+    PacketCapture(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    synchronized void capture(boolean clientbound, ByteBuf buf) {
+        if (failed) {
+            return;
+        }
+        try {
+            if (output == null) {
+                open();
+            }
+            long now = System.nanoTime();
+            output.writeByte(clientbound ? CLIENTBOUND : SERVERBOUND);
+            writeVarLong(output, now - lastFrameTime);
+            lastFrameTime = now;
+            writeVarLong(output, buf.readableBytes());
+            buf.getBytes(buf.readerIndex(), (OutputStream) output, buf.readableBytes());
+        } catch (IOException e) {
+            LOGGER.error("Failed to capture packet, disabling packet capture for this connection", e);
+            failed = true;
+            close();
+        }
+    }
+
+    private void open() throws IOException {
+        Path dir = FabricLoader.getInstance().getGameDir().resolve("multiconnect-captures");
+        Files.createDirectories(dir);
+        String fileName = new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date()) + "_" + protocolVersion + "_" + nextCaptureId.getAndIncrement() + ".mcap";
+        Path file = dir.resolve(fileName);
+        output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeInt(protocolVersion);
+        output.writeLong(System.currentTimeMillis());
+        lastFrameTime = System.nanoTime();
+        LOGGER.info("Capturing packets to {}", file);
+    }
+
+    synchronized void close() {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                LOGGER.error("Failed to close packet capture", e);
+            }
+            output = null;
+        }
+    }
+
+    public static Capture read(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not a packet capture file: " + file);
+            }
+            int version = input.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported packet capture version " + version);
+            }
+            int protocol = input.readInt();
+            long startTime = input.readLong();
+            List<Frame> frames = new ArrayList<>();
+            long time = 0;
+            int direction;
+            while ((direction = input.read()) != -1) {
+                time += readVarLong(input);
+                byte[] data = new byte[(int) readVarLong(input)];
+                input.readFully(data);
+                frames.add(new Frame(direction == CLIENTBOUND, time, data));
+            }
+            return new Capture(protocol, startTime, frames);
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            output.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    private static long readVarLong(InputStream input) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.read();
+            if (b == -1) {
+                throw new EOFException("Truncated packet capture");
+            }
+            result |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("VarLong too big");
+    }
+
+    public record Capture(int protocol, long startTimeMillis, List<Frame> frames) {}
+
+    /**
+     * @param timeNanos The time since the start of the capture
+     * @param data The raw packet, starting with the packet ID
+     */
+    public record Frame(boolean clientbound, long timeNanos, byte[] data) {}
+}
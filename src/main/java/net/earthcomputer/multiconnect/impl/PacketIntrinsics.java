@@ -7,6 +7,8 @@ import com.mojang.serialization.Dynamic;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.EncoderException;
@@ -150,6 +152,14 @@ public final class PacketIntrinsics {
         return result;
     }
 
+    public static int[] makeRemapTable(int size, IntUnaryOperator remapper) {
+        int[] table = new int[size];
+        for (int i = 0; i < size; i++) {
+            table[i] = remapper.applyAsInt(i);
+        }
+        return table;
+    }
+
     public static int getStateId(RegistryKey<Block> blockKey, int offset) {
         Block block = Registry.BLOCK.get(blockKey);
         if (block == null) {
@@ -159,6 +169,18 @@ public final class PacketIntrinsics {
         return Block.getRawIdFromState(firstState) + offset;
     }
 
+    /**
+     * Translates a packet whose body has the same wire format in both protocols, by writing the new packet ID and
+     * forwarding the remaining bytes of {@code buf} without copying them.
+     */
+    public static ByteBuf rewritePacketId(ByteBuf buf, int newId) {
+        ByteBuf idBuf = Unpooled.buffer(5, 5);
+        writeVarInt(idBuf, newId);
+        ByteBuf result = Unpooled.wrappedBuffer(idBuf, buf.retainedSlice());
+        buf.skipBytes(buf.readableBytes());
+        return result;
+    }
+
     public static void sendRawToServer(ClientPlayNetworkHandler networkHandler, List<ByteBuf> bufs) {
         if (bufs.isEmpty()) {
             return;
@@ -180,13 +202,19 @@ public final class PacketIntrinsics {
             return;
         }
 
-        ChannelHandlerContext context = ((ClientConnectionAccessor) networkHandler.getConnection()).getChannel()
-                .pipeline()
-                .context("multiconnect_clientbound_translator");
+        Channel channel = ((ClientConnectionAccessor) networkHandler.getConnection()).getChannel();
+        ChannelHandlerContext context = channel.pipeline().context("multiconnect_clientbound_translator");
 
-        for (ByteBuf buf : bufs) {
-            PacketSystem.Internals.setUserData(buf, userData);
-            context.fireChannelRead(buf);
+        if (channel.eventLoop().inEventLoop()) {
+            for (ByteBuf buf : bufs) {
+                PacketSystem.Internals.fireTranslatedPacket(context, buf, userData);
+            }
+        } else {
+            channel.eventLoop().execute(() -> {
+                for (ByteBuf buf : bufs) {
+                    PacketSystem.Internals.fireTranslatedPacket(context, buf, userData);
+                }
+            });
         }
     }
 
@@ -325,5 +353,17 @@ public final class PacketIntrinsics {
         );
     }
 
-    public record StartSendPacketResult(Class<?>[] readDependencies, Class<?>[] writeDependencies, RawPacketSender sender) {}
+    /**
+     * @param heavy Whether the translation is expensive enough to be worth running off the event loop even when
+     *              threaded translation is disabled
+     * @param unordered Whether the packet is order insensitive and has no dependencies, so may be delivered as soon as
+     *                  it has been translated
+     */
+    public record StartSendPacketResult(
+            Class<?>[] readDependencies,
+            Class<?>[] writeDependencies,
+            RawPacketSender sender,
+            boolean heavy,
+            boolean unordered
+    ) {}
 }
@@ -1,14 +1,19 @@
 package net.earthcomputer.multiconnect.impl;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.earthcomputer.multiconnect.api.ThreadSafe;
 import net.earthcomputer.multiconnect.connect.ConnectionMode;
 import net.earthcomputer.multiconnect.mixin.connect.ClientConnectionAccessor;
+import net.earthcomputer.multiconnect.protocols.generic.IUserDataHolder;
 import net.earthcomputer.multiconnect.protocols.generic.TypedMap;
 import net.minecraft.SharedConstants;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
@@ -17,8 +22,6 @@ import net.minecraft.util.Identifier;
 import net.minecraft.util.Util;
 import net.minecraft.util.registry.Registry;
 import net.minecraft.util.registry.RegistryKey;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.Nullable;
 
@@ -27,39 +30,21 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class PacketSystem {
-    private static final Logger LOGGER = LogManager.getLogger();
-
     private PacketSystem() {}
 
-    private static final Int2ObjectMap<ProtocolClassProxy> protocolClasses = Util.make(new Int2ObjectOpenHashMap<>(), map -> {
-        for (ConnectionMode protocol : ConnectionMode.protocolValues()) {
-            String protocolName = protocol.getName();
-
-            // handle snapshot version for snapshot development
-            if (!SharedConstants.getGameVersion().isStable() && protocolName.equals(SharedConstants.getGameVersion().getId())) {
-                protocolName = SharedConstants.getGameVersion().getReleaseTarget();
-            }
-
-            Class<?> clazz;
-            try {
-                clazz = Class.forName("net.earthcomputer.multiconnect.generated.Protocol_" + protocolName.replace('.', '_'));
-            } catch (ClassNotFoundException e) {
-                // TODO: make this a hard error once the packet system is complete
-                LOGGER.warn("Protocol class not found for {}", protocolName);
-                continue;
-            }
-            map.put(protocol.getValue(), new ProtocolClassProxy(clazz, protocol.getValue()));
-        }
-    });
+    // Generated protocol classes are loaded when first used. This map is copied on write, as it's read for every packet
+    // but only written when a protocol is first used.
+    private static volatile Int2ObjectMap<GeneratedProtocol> protocolClasses = Int2ObjectMaps.emptyMap();
 
     private static final MethodHandle defaultConstructor = Util.make(() -> {
         Class<?> clazz;
@@ -71,51 +56,136 @@ public class PacketSystem {
         return findMethodHandle(clazz, "construct", Object.class, Class.class);
     });
 
-    private static final LoadingCache<Packet<?>, TypedMap> packetUserData = CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(TypedMap::new));
-    private static final Map<Class<?>, Object> globalData = new HashMap<>();
+    // only packets with non-empty user data which don't hold it themselves are stored, most packets never touch this cache
+    private static final Cache<Packet<?>, TypedMap> packetUserData = CacheBuilder.newBuilder().weakKeys().build();
+    // doesServerKnow evaluated for every raw ID of a registry, computed on first use in each connection
+    private static final Map<Registry<?>, ServerKnownIds> serverKnownIds = new ConcurrentHashMap<>();
 
     // TODO: enable threaded translation by default if we decide it's needed
     private static final boolean USE_THREADED_TRANSLATION = Boolean.parseBoolean(System.getProperty("multiconnect.useThreadedTranslation", "false"));
-    private static ReadWritePacketExecutor clientboundExecutor;
-    private static ReadWritePacketExecutor serverboundExecutor;
+    // when threaded translation is disabled, still translate chunks on a thread pool, as they are by far the most expensive.
+    // Opt-in like threaded translation, as translations unblocked by a chunk then run on the pool too, so handlers with
+    // side effects on the client can run before earlier packets held behind the chunk have been delivered
+    private static final boolean USE_PARALLEL_CHUNK_TRANSLATION = Boolean.parseBoolean(System.getProperty("multiconnect.parallelChunkTranslation", "false"));
+    // the context of the game's own connection
+    @Nullable
+    private static volatile TranslationContext currentContext;
 
     public static void connect() {
+        TranslationContext context = currentContext;
+        if (context != null) {
+            if (context.getProtocolVersion() == ConnectionInfo.protocolVersion) {
+                // this is also called on resource reload, keep the context, metrics and capture of the current connection
+                return;
+            }
+            context.close();
+        }
+        serverKnownIds.clear();
+        TranslationMetrics.reset();
+        ReadWritePacketExecutor clientboundExecutor = null;
+        ReadWritePacketExecutor serverboundExecutor = null;
         if (USE_THREADED_TRANSLATION) {
-            clientboundExecutor = new ReadWritePacketExecutor(true);
-            serverboundExecutor = new ReadWritePacketExecutor(false);
+            clientboundExecutor = new ReadWritePacketExecutor(true, false);
+            serverboundExecutor = new ReadWritePacketExecutor(false, false);
+        } else if (USE_PARALLEL_CHUNK_TRANSLATION) {
+            clientboundExecutor = new ReadWritePacketExecutor(true, true);
         }
+        currentContext = new TranslationContext(ConnectionInfo.protocolVersion, ConnectionInfo.protocol, clientboundExecutor, serverboundExecutor);
     }
 
     public static void disconnect() {
-        joinExecutors();
-        globalData.clear();
+        TranslatorWarmUp.cancel();
+        TranslationContext context = currentContext;
+        if (context != null) {
+            context.close();
+            currentContext = null;
+        }
+        serverKnownIds.clear();
+    }
+
+    /**
+     * Returns the translation context of the game's own connection
+     */
+    @Nullable
+    public static TranslationContext getCurrentContext() {
+        return currentContext;
     }
 
-    private static void joinExecutors() {
-        if (clientboundExecutor == null && serverboundExecutor == null) {
-            return;
+    /**
+     * Returns the translation context attached to the channel, or that of the game's own connection if there isn't one
+     */
+    public static TranslationContext getContext(Channel channel) {
+        TranslationContext context = TranslationContext.get(channel);
+        if (context == null) {
+            context = currentContext;
+            if (context == null) {
+                throw new IllegalStateException("No translation context");
+            }
         }
+        return context;
+    }
+
+    /**
+     * Returns the user data attached to the packet during translation. If the packet has none, an empty map is returned,
+     * which is not attached to the packet.
+     */
+    public static TypedMap getUserData(Packet<?> packet) {
+        TypedMap userData = packet instanceof IUserDataHolder holder
+                ? holder.multiconnect_getUserData()
+                : packetUserData.getIfPresent(packet);
+        return userData != null ? userData : new TypedMap();
+    }
 
-        if (clientboundExecutor != null) {
-            clientboundExecutor.shutdown();
+    static GeneratedProtocol getProtocolClass(int protocol) {
+        GeneratedProtocol instance = protocolClasses.get(protocol);
+        if (instance == null) {
+            instance = loadProtocolClass(protocol);
         }
-        if (serverboundExecutor != null) {
-            serverboundExecutor.shutdown();
+        return instance;
+    }
+
+    /**
+     * Loads the generated protocol class for the given protocol ahead of time, so that the first packets of a connection
+     * don't have to wait for it
+     */
+    @ThreadSafe
+    public static void preloadProtocol(int protocol) {
+        getProtocolClass(protocol);
+    }
+
+    private static synchronized GeneratedProtocol loadProtocolClass(int protocol) {
+        GeneratedProtocol instance = protocolClasses.get(protocol);
+        if (instance != null) {
+            return instance;
         }
 
-        long start = System.nanoTime();
-        List<CompletableFuture<Void>> futures = new ArrayList<>(2);
-        if (clientboundExecutor != null) {
-            futures.add(clientboundExecutor.awaitTermination(start));
+        ConnectionMode connectionMode = ConnectionMode.byValue(protocol);
+        if (connectionMode == ConnectionMode.AUTO) {
+            throw new IllegalArgumentException("Unsupported protocol " + protocol);
         }
-        if (serverboundExecutor != null) {
-            futures.add(serverboundExecutor.awaitTermination(start));
+        String protocolName = connectionMode.getName();
+
+        // handle snapshot version for snapshot development
+        if (!SharedConstants.getGameVersion().isStable() && protocolName.equals(SharedConstants.getGameVersion().getId())) {
+            protocolName = SharedConstants.getGameVersion().getReleaseTarget();
         }
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-    }
 
-    public static TypedMap getUserData(Packet<?> packet) {
-        return packetUserData.getUnchecked(packet);
+        Class<?> clazz;
+        try {
+            clazz = Class.forName("net.earthcomputer.multiconnect.generated.Protocol_" + protocolName.replace('.', '_'));
+        } catch (ClassNotFoundException e) {
+            throw new AssertionError("Protocol class not found for " + protocolName, e);
+        }
+        try {
+            instance = (GeneratedProtocol) clazz.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new AssertionError("Could not instantiate protocol class " + clazz.getName(), e);
+        }
+
+        Int2ObjectMap<GeneratedProtocol> newProtocolClasses = new Int2ObjectOpenHashMap<>(protocolClasses);
+        newProtocolClasses.put(protocol, instance);
+        protocolClasses = newProtocolClasses;
+        return instance;
     }
 
     @SuppressWarnings("unchecked")
@@ -134,11 +204,12 @@ public class PacketSystem {
 
     public static void sendToServer(ClientPlayNetworkHandler networkHandler, int protocol, Object packet, Consumer<TypedMap> userDataSetter) {
         Channel channel = ((ClientConnectionAccessor) networkHandler.getConnection()).getChannel();
+        TranslationContext context = getContext(channel);
         Runnable send = () -> {
             List<ByteBuf> bufs = new ArrayList<>(1);
             TypedMap userData = new TypedMap();
             userDataSetter.accept(userData);
-            protocolClasses.get(ConnectionInfo.protocolVersion).sendToServer(packet, protocol, bufs, networkHandler, globalData, userData);
+            context.getGeneratedProtocol().sendToServer(packet, protocol, bufs, networkHandler, context.getGlobalData(), userData);
             PacketIntrinsics.sendRawToServer(networkHandler, bufs);
         };
         if (channel.eventLoop().inEventLoop()) {
@@ -154,11 +225,12 @@ public class PacketSystem {
 
     public static void sendToClient(ClientPlayNetworkHandler networkHandler, int protocol, Object packet, Consumer<TypedMap> userDataSetter) {
         Channel channel = ((ClientConnectionAccessor) networkHandler.getConnection()).getChannel();
+        TranslationContext context = getContext(channel);
         Runnable send = () -> {
             List<ByteBuf> bufs = new ArrayList<>(1);
             TypedMap userData = new TypedMap();
             userDataSetter.accept(userData);
-            protocolClasses.get(protocol).sendToClient(packet, bufs, networkHandler, globalData, userData);
+            getProtocolClass(protocol).sendToClient(packet, bufs, networkHandler, context.getGlobalData(), userData);
             PacketIntrinsics.sendRawToClient(networkHandler, userData, bufs);
         };
         if (channel.eventLoop().inEventLoop()) {
@@ -169,29 +241,66 @@ public class PacketSystem {
     }
 
     public static <T> boolean doesServerKnow(Registry<T> registry, RegistryKey<T> key) {
-        return doesServerKnow(registry, key, registry.get(key));
+        return doesServerKnow(registry, registry.get(key));
     }
 
     public static <T> boolean doesServerKnow(Registry<T> registry, T value) {
-        Optional<RegistryKey<T>> key = registry.getKey(value);
-        if (key.isEmpty()) {
-            return false;
+        int rawId = registry.getRawId(value);
+        return rawId >= 0 && getServerKnownIds(registry).get(rawId);
+    }
+
+    /**
+     * Returns a predicate testing whether the server knows about a value in the given registry. The predicate captures
+     * the known IDs at the time of the call, so does not need to look them up again for each value.
+     */
+    public static <T> Predicate<T> getServerKnownPredicate(Registry<T> registry) {
+        BitSet knownIds = getServerKnownIds(registry);
+        return value -> {
+            int rawId = registry.getRawId(value);
+            return rawId >= 0 && knownIds.get(rawId);
+        };
+    }
+
+    // the returned set is shared between callers, it must not escape this class
+    private static BitSet getServerKnownIds(Registry<?> registry) {
+        int protocolVersion = ConnectionInfo.protocolVersion;
+        ServerKnownIds knownIds = serverKnownIds.get(registry);
+        if (knownIds == null || knownIds.protocol() != protocolVersion || knownIds.registrySize() != registry.size()) {
+            knownIds = computeServerKnownIds(registry, protocolVersion);
+            serverKnownIds.put(registry, knownIds);
         }
-        return doesServerKnow(registry, key.get(), value);
+        return knownIds.ids();
     }
 
-    private static <T> boolean doesServerKnow(Registry<T> registry, RegistryKey<T> key, T value) {
-        int rawId = registry.getRawId(value);
-        ProtocolClassProxy proxy = protocolClasses.get(ConnectionInfo.protocolVersion);
-        return proxy.doesServerKnow(registry.getKey(), rawId) || proxy.doesServerKnowMulticonnect(key);
+    private static <T> ServerKnownIds computeServerKnownIds(Registry<T> registry, int protocolVersion) {
+        GeneratedProtocol protocol = getProtocolClass(protocolVersion);
+        int registrySize = registry.size();
+        BitSet ids = new BitSet(registrySize);
+        for (T value : registry) {
+            int rawId = registry.getRawId(value);
+            Optional<RegistryKey<T>> key = registry.getKey(value);
+            if (key.isPresent() && (protocol.doesServerKnow(registry.getKey(), rawId) || protocol.doesServerKnowMulticonnect(key.get()))) {
+                ids.set(rawId);
+            }
+        }
+        return new ServerKnownIds(protocolVersion, registrySize, ids);
     }
 
+    private record ServerKnownIds(int protocol, int registrySize, BitSet ids) {}
+
+    // The remaps without a version use the protocol of the game's own connection. Translation code must use those of
+    // its TranslationContext instead, which is what these delegate to.
+
     public static int serverRawIdToClient(Registry<?> registry, int serverRawId) {
         return serverRawIdToClient(ConnectionInfo.protocolVersion, registry, serverRawId);
     }
 
     public static int serverRawIdToClient(int serverVersion, Registry<?> registry, int serverRawId) {
-        return protocolClasses.get(serverVersion).remapSInt(registry.getKey(), serverRawId);
+        return serverRawIdToClient(getProtocolClass(serverVersion), registry, serverRawId);
+    }
+
+    static int serverRawIdToClient(GeneratedProtocol protocol, Registry<?> registry, int serverRawId) {
+        return protocol.remapSInt(registry.getKey(), serverRawId);
     }
 
     public static int clientRawIdToServer(Registry<?> registry, int clientRawId) {
@@ -199,7 +308,11 @@ public class PacketSystem {
     }
 
     public static int clientRawIdToServer(int serverVersion, Registry<?> registry, int clientRawId) {
-        return protocolClasses.get(serverVersion).remapCInt(registry.getKey(), clientRawId);
+        return clientRawIdToServer(getProtocolClass(serverVersion), registry, clientRawId);
+    }
+
+    static int clientRawIdToServer(GeneratedProtocol protocol, Registry<?> registry, int clientRawId) {
+        return protocol.remapCInt(registry.getKey(), clientRawId);
     }
 
     public static Identifier serverIdToClient(Registry<?> registry, Identifier serverId) {
@@ -207,7 +320,11 @@ public class PacketSystem {
     }
 
     public static Identifier serverIdToClient(int serverVersion, Registry<?> registry, Identifier serverId) {
-        return protocolClasses.get(serverVersion).remapSIdentifier(registry.getKey(), serverId);
+        return serverIdToClient(getProtocolClass(serverVersion), registry, serverId);
+    }
+
+    static Identifier serverIdToClient(GeneratedProtocol protocol, Registry<?> registry, Identifier serverId) {
+        return protocol.remapSIdentifier(registry.getKey(), serverId);
     }
 
     public static Identifier clientIdToServer(Registry<?> registry, Identifier clientId) {
@@ -215,7 +332,11 @@ public class PacketSystem {
     }
 
     public static Identifier clientIdToServer(int serverVersion, Registry<?> registry, Identifier clientId) {
-        return protocolClasses.get(serverVersion).remapCIdentifier(registry.getKey(), clientId);
+        return clientIdToServer(getProtocolClass(serverVersion), registry, clientId);
+    }
+
+    static Identifier clientIdToServer(GeneratedProtocol protocol, Registry<?> registry, Identifier clientId) {
+        return protocol.remapCIdentifier(registry.getKey(), clientId);
     }
 
     @Nullable
@@ -225,13 +346,18 @@ public class PacketSystem {
 
     @Nullable
     public static <T> Integer serverIdToRawId(int serverVersion, Registry<T> registry, Identifier serverId) {
-        Identifier clientId = serverIdToClient(serverVersion, registry, serverId);
+        return serverIdToRawId(getProtocolClass(serverVersion), registry, serverId);
+    }
+
+    @Nullable
+    static <T> Integer serverIdToRawId(GeneratedProtocol protocol, Registry<T> registry, Identifier serverId) {
+        Identifier clientId = serverIdToClient(protocol, registry, serverId);
         T value = registry.get(clientId);
         if (value == null) {
             return null;
         }
         int clientRawId = registry.getRawId(value);
-        return clientRawIdToServer(serverVersion, registry, clientRawId);
+        return clientRawIdToServer(protocol, registry, clientRawId);
     }
 
     @Nullable
@@ -241,13 +367,18 @@ public class PacketSystem {
 
     @Nullable
     public static <T> Identifier serverRawIdToId(int serverVersion, Registry<T> registry, int serverRawId) {
-        int clientRawId = serverRawIdToClient(serverVersion, registry, serverRawId);
+        return serverRawIdToId(getProtocolClass(serverVersion), registry, serverRawId);
+    }
+
+    @Nullable
+    static <T> Identifier serverRawIdToId(GeneratedProtocol protocol, Registry<T> registry, int serverRawId) {
+        int clientRawId = serverRawIdToClient(protocol, registry, serverRawId);
         T value = registry.get(clientRawId);
         if (value == null) {
             return null;
         }
         Identifier clientId = registry.getId(value);
-        return clientIdToServer(serverVersion, registry, clientId);
+        return clientIdToServer(protocol, registry, clientId);
     }
 
     public static int serverBlockStateIdToClient(int serverBlockStateId) {
@@ -255,7 +386,7 @@ public class PacketSystem {
     }
 
     public static int serverBlockStateIdToClient(int serverVersion, int serverBlockStateId) {
-        return protocolClasses.get(serverVersion).remapSIntBlockState(serverBlockStateId);
+        return getProtocolClass(serverVersion).serverBlockStateIdToClient(serverBlockStateId);
     }
 
     public static int clientBlockStateIdToServer(int clientBlockStateId) {
@@ -263,52 +394,89 @@ public class PacketSystem {
     }
 
     public static int clientBlockStateIdToServer(int serverVersion, int clientBlockStateId) {
-        return protocolClasses.get(serverVersion).remapCIntBlockState(clientBlockStateId);
+        return getProtocolClass(serverVersion).clientBlockStateIdToServer(clientBlockStateId);
     }
 
     public static class Internals {
-        private static final LoadingCache<ByteBuf, TypedMap> bufUserData = CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(TypedMap::new));
+        private static final AttributeKey<TypedMap> DECODING_USER_DATA = AttributeKey.newInstance("multiconnect_decoding_user_data");
 
-        public static PacketIntrinsics.StartSendPacketResult translateSPacket(int protocol, ByteBuf buf) {
-            return protocolClasses.get(protocol).translateSPacket(buf);
+        public static PacketIntrinsics.StartSendPacketResult translateSPacket(TranslationContext context, ByteBuf buf) {
+            return context.getGeneratedProtocol().translateSPacket(buf);
         }
 
-        public static PacketIntrinsics.StartSendPacketResult translateCPacket(int protocol, ByteBuf buf) {
-            return protocolClasses.get(protocol).translateCPacket(buf);
+        public static PacketIntrinsics.StartSendPacketResult translateCPacket(TranslationContext context, ByteBuf buf) {
+            return context.getGeneratedProtocol().translateCPacket(buf);
+        }
+
+        public static PacketIntrinsics.StartSendPacketResult translateSPacket(int protocol, ByteBuf buf) {
+            return getProtocolClass(protocol).translateSPacket(buf);
         }
 
-        public static void setUserData(Packet<?> packet, TypedMap userData) {
-            packetUserData.put(packet, userData);
+        public static PacketIntrinsics.StartSendPacketResult translateCPacket(int protocol, ByteBuf buf) {
+            return getProtocolClass(protocol).translateCPacket(buf);
         }
 
-        public static TypedMap getUserData(ByteBuf buf) {
-            return bufUserData.getUnchecked(buf);
+        /**
+         * Passes a translated packet on to the vanilla decoder, which attaches {@code userData} to the decoded packet.
+         * Must be called on the channel's event loop, so that the decoder runs synchronously within this call.
+         */
+        public static void fireTranslatedPacket(ChannelHandlerContext context, ByteBuf buf, TypedMap userData) {
+            Attribute<TypedMap> decodingUserData = context.channel().attr(DECODING_USER_DATA);
+            decodingUserData.set(userData);
+            try {
+                context.fireChannelRead(buf);
+            } finally {
+                decodingUserData.set(null);
+            }
         }
 
-        public static void setUserData(ByteBuf buf, TypedMap userData) {
-            bufUserData.put(buf, userData);
+        public static void onPacketDecoded(Channel channel, Packet<?> packet) {
+            TypedMap userData = channel.attr(DECODING_USER_DATA).get();
+            if (userData != null && !userData.isEmpty()) {
+                if (packet instanceof IUserDataHolder holder) {
+                    holder.multiconnect_setUserData(userData);
+                } else {
+                    packetUserData.put(packet, userData);
+                }
+            }
         }
 
+        /**
+         * Submits a packet translation. Ownership of {@code input} is passed to the translation task, which releases it
+         * once the translation has run (or has been discarded because the executor was shut down). In the clientbound
+         * direction, reading from {@code channel} may be paused while too many translations are in flight.
+         */
         public static void submitTranslationTask(
+                TranslationContext context,
+                Channel channel,
+                ByteBuf input,
                 Class<?>[] readDependencies,
                 Class<?>[] writeDependencies,
+                boolean heavy,
+                boolean unordered,
                 Runnable translation,
                 Runnable onTranslated,
                 boolean clientbound
         ) {
-            ReadWritePacketExecutor executor = clientbound ? clientboundExecutor : serverboundExecutor;
-
-            if (!USE_THREADED_TRANSLATION || executor == null) {
-                translation.run();
+            ReadWritePacketExecutor executor = context.getExecutor(clientbound);
+
+            if (executor == null) {
+                try {
+                    translation.run();
+                } finally {
+                    input.release();
+                }
                 onTranslated.run();
                 return;
             }
 
-            executor.submit(readDependencies, writeDependencies, translation, onTranslated);
+            executor.submit(channel, input, readDependencies, writeDependencies, heavy, unordered, translation, onTranslated);
         }
 
-        public static Map<Class<?>, Object> getGlobalData() {
-            return globalData;
+        @Nullable
+        public static ReadWritePacketExecutor getTranslationExecutor(boolean clientbound) {
+            TranslationContext context = currentContext;
+            return context == null ? null : context.getExecutor(clientbound);
         }
     }
 
@@ -319,130 +487,4 @@ public class PacketSystem {
             throw new AssertionError("Class " + clazz.getName() + " is missing required method " + returnType.getName() + " " + methodName + " " + Arrays.stream(paramTypes).map(Class::getName).collect(Collectors.joining(", ", "(", ")")));
         }
     }
-
-    private static class ProtocolClassProxy {
-        private final MethodHandle translateSPacket;
-        private final MethodHandle translateCPacket;
-        private final MethodHandle sendToClient;
-        private final MethodHandle sendToServer;
-        private final MethodHandle doesServerKnow;
-        private final MethodHandle doesServerKnowMulticonnect;
-        private final MethodHandle remapCInt;
-        private final MethodHandle remapSInt;
-        private final MethodHandle remapCIdentifier;
-        private final MethodHandle remapSIdentifier;
-        private final MethodHandle remapCIntBlockState;
-        private final MethodHandle remapSIntBlockState;
-
-        ProtocolClassProxy(Class<?> clazz, int protocol) {
-            this.translateSPacket = findMethodHandle(clazz, "translateSPacket", PacketIntrinsics.StartSendPacketResult.class, ByteBuf.class);
-            this.translateCPacket = findMethodHandle(clazz, "translateCPacket", PacketIntrinsics.StartSendPacketResult.class, ByteBuf.class);
-            this.sendToClient = findMethodHandle(clazz, "sendToClient", void.class, Object.class, List.class, ClientPlayNetworkHandler.class, Map.class, TypedMap.class);
-            this.sendToServer = findMethodHandle(clazz, "sendToServer", void.class, Object.class, int.class, List.class, ClientPlayNetworkHandler.class, Map.class, TypedMap.class);
-            this.doesServerKnow = findMethodHandle(clazz, "doesServerKnow", boolean.class, RegistryKey.class, int.class);
-            this.doesServerKnowMulticonnect = findMethodHandle(clazz, "doesServerKnowMulticonnect", boolean.class, RegistryKey.class);
-            this.remapCInt = findMethodHandle(clazz, "remapCInt", int.class, RegistryKey.class, int.class);
-            this.remapSInt = findMethodHandle(clazz, "remapSInt", int.class, RegistryKey.class, int.class);
-            this.remapCIdentifier = findMethodHandle(clazz, "remapCIdentifier", Identifier.class, RegistryKey.class, Identifier.class);
-            this.remapSIdentifier = findMethodHandle(clazz, "remapSIdentifier", Identifier.class, RegistryKey.class, Identifier.class);
-            this.remapCIntBlockState = findMethodHandle(clazz, "remapCIntBlockState", int.class, int.class);
-            this.remapSIntBlockState = findMethodHandle(clazz, "remapSIntBlockState", int.class, int.class);
-        }
-
-        PacketIntrinsics.StartSendPacketResult translateSPacket(ByteBuf buf) {
-            try {
-                return (PacketIntrinsics.StartSendPacketResult) translateSPacket.invoke(buf);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        PacketIntrinsics.StartSendPacketResult translateCPacket(ByteBuf buf) {
-            try {
-                return (PacketIntrinsics.StartSendPacketResult) translateCPacket.invoke(buf);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        void sendToClient(Object packet, List<ByteBuf> outBufs, ClientPlayNetworkHandler networkHandler, Map<Class<?>, Object> globalData, TypedMap userData) {
-            try {
-                sendToClient.invoke(packet, outBufs, networkHandler, globalData, userData);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        void sendToServer(Object packet, int fromProtocol, List<ByteBuf> outBufs, ClientPlayNetworkHandler networkHandler, Map<Class<?>, Object> globalData, TypedMap userData) {
-            try {
-                sendToServer.invoke(packet, fromProtocol, outBufs, networkHandler, globalData, userData);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        boolean doesServerKnow(RegistryKey<? extends Registry<?>> registry, int newId) {
-            try {
-                return (Boolean) doesServerKnow.invoke(registry, newId);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        boolean doesServerKnowMulticonnect(RegistryKey<?> value) {
-            try {
-                return (Boolean) doesServerKnowMulticonnect.invoke(value);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        int remapCInt(RegistryKey<? extends Registry<?>> registry, int value) {
-            try {
-                return (Integer) remapCInt.invoke(registry, value);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        int remapSInt(RegistryKey<? extends Registry<?>> registry, int value) {
-            try {
-                return (Integer) remapSInt.invoke(registry, value);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        Identifier remapCIdentifier(RegistryKey<? extends Registry<?>> registry, Identifier value) {
-            try {
-                return (Identifier) remapCIdentifier.invoke(registry, value);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        Identifier remapSIdentifier(RegistryKey<? extends Registry<?>> registry, Identifier value) {
-            try {
-                return (Identifier) remapSIdentifier.invoke(registry, value);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        int remapCIntBlockState(int value) {
-            try {
-                return (Integer) remapCIntBlockState.invoke(value);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-
-        int remapSIntBlockState(int value) {
-            try {
-                return (Integer) remapSIntBlockState.invoke(value);
-            } catch (Throwable e) {
-                throw PacketIntrinsics.sneakyThrow(e);
-            }
-        }
-    }
 }
@@ -1,410 +1,437 @@
 package net.earthcomputer.multiconnect.impl;
 
-import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import it.unimi.dsi.fastutil.objects.Object2IntMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
-import it.unimi.dsi.fastutil.objects.ObjectOpenCustomHashSet;
-import it.unimi.dsi.fastutil.objects.ObjectSet;
-import net.minecraft.util.Util;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import org.apache.commons.lang3.mutable.MutableObject;
-import org.jetbrains.annotations.NotNull;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
-
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs packet translations on a thread pool, while making sure that translations which access the same global data
+ * see each other's effects in the order the packets arrived.
+ *
+ * <p>Each dependency class gets a stable integer index, which maps to a {@link DependencyLock} in this executor. A
+ * translation acquires all of its dependency locks when it is submitted, and is only handed to the thread pool once
+ * every lock has been granted. Each dependency lock is a monitor of its own with a queue of the translations waiting
+ * for it. When a translation finishes, it releases its locks, and each lock wakes only the waiting translations it can
+ * now grant, so there is no scan over the pending translations. The executor's own monitor is only held briefly, to
+ * look up the locks of a submitted translation.
+ *
+ * <p>In the clientbound direction, the number of translations which have been submitted but not yet delivered is
+ * bounded by {@code multiconnect.maxInFlightTranslations}. When the bound is reached, the channel stops reading from
+ * the server until half of the window has drained.
+ *
+ * <p>An executor created with {@code heavyOnly} is used when threaded translation is disabled. Only heavy
+ * translations such as chunk data are handed to the thread pool, which then has a thread for every spare core, while
+ * all other translations run on the thread which made them ready. Since every translation still goes through the
+ * dependency locks and the sliding window, packets touching the same data are translated in order, and all packets
+ * are delivered in order.
+ *
+ * <p>The exception is packets marked as unordered, which have no dependencies and are delivered as soon as they have
+ * been translated, without entering the window. This stops keep-alives from waiting behind a flood of chunk packets.
+ */
 public final class ReadWritePacketExecutor {
-    private final ReadWriteBlockingQueue queue;
+    private static final Logger LOGGER = LogManager.getLogger("multiconnect");
+
+    private static final AtomicInteger nextDependencyIndex = new AtomicInteger();
+    private static final ClassValue<Integer> dependencyIndices = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return nextDependencyIndex.getAndIncrement();
+        }
+    };
+
+    private static final int MAX_IN_FLIGHT_TRANSLATIONS = Math.max(2, Integer.getInteger("multiconnect.maxInFlightTranslations", 512));
+
+    private final boolean clientbound;
+    private final boolean heavyOnly;
     private final ExecutorService executor;
     private final ArrayDeque<MutableObject<Runnable>> slidingWindow = new ArrayDeque<>();
-    private boolean isShutdown;
+    private DependencyLock[] dependencyLocks = new DependencyLock[0];
+    private volatile boolean isShutdown;
 
-    @SuppressWarnings("unchecked") // some evil stuff
-    public ReadWritePacketExecutor(boolean clientbound) {
-        String direction = clientbound ? "clientbound" : "serverbound";
-        int numThreads = Math.max(1, (Runtime.getRuntime().availableProcessors() - 1) / 2);
-        this.queue = new ReadWriteBlockingQueue();
-        var queue = (BlockingQueue<Runnable>) (BlockingQueue<?>) this.queue;
-        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("multiconnect " + direction + " translator #%d").build();
-        executor = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS, queue, threadFactory) {
-            @Override
-            protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
-                RunnableFuture<T> delegate = super.newTaskFor(runnable, value);
-                IHasPacket hasPacket = (IHasPacket) runnable;
-                return new TranslationFutureTask<>(delegate, hasPacket.readDependencies(), hasPacket.writeDependencies());
-            }
+    private final AtomicInteger windowDepth = new AtomicInteger();
+    private final AtomicInteger peakWindowDepth = new AtomicInteger();
+    private final AtomicLong backPressureCount = new AtomicLong();
+    private final AtomicReference<Channel> pausedChannel = new AtomicReference<>();
 
-            @Override
-            protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
-                throw new UnsupportedOperationException();
-            }
-        };
+    public ReadWritePacketExecutor(boolean clientbound, boolean heavyOnly) {
+        this.clientbound = clientbound;
+        this.heavyOnly = heavyOnly;
+        String direction = clientbound ? "clientbound" : "serverbound";
+        int numThreads;
+        String threadName;
+        if (heavyOnly) {
+            numThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            threadName = "multiconnect " + direction + " heavy translator #%d";
+        } else {
+            numThreads = Math.max(1, (Runtime.getRuntime().availableProcessors() - 1) / 2);
+            threadName = "multiconnect " + direction + " translator #%d";
+        }
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(threadName).build();
+        // tasks only enter the queue once all their dependencies have been granted, so any worker can take any task
+        executor = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
     }
 
     public void submit(
+            Channel channel,
+            ByteBuf input,
             Class<?>[] readDependencies,
             Class<?>[] writeDependencies,
+            boolean heavy,
+            boolean unordered,
             Runnable translation,
             Runnable onTranslated
     ) {
         if (isShutdown) {
+            input.release();
             return;
         }
 
-        MutableObject<Runnable> slidingWindowEntry = new MutableObject<>();
-        synchronized (slidingWindow) {
-            slidingWindow.offer(slidingWindowEntry);
+        // unordered packets bypass the window, so aren't held up behind slow translations submitted before them
+        MutableObject<Runnable> slidingWindowEntry;
+        if (unordered) {
+            slidingWindowEntry = null;
+        } else {
+            slidingWindowEntry = new MutableObject<>();
+            synchronized (slidingWindow) {
+                slidingWindow.offer(slidingWindowEntry);
+            }
+            onEnterWindow(channel);
         }
-        executor.submit(new TranslationTask(readDependencies, writeDependencies, () -> {
+
+        DependencyLock[] writeLocks = getDependencyLocks(writeDependencies, null);
+        DependencyLock[] readLocks = getDependencyLocks(readDependencies, writeLocks);
+        PendingTask task = new PendingTask(input, readLocks, writeLocks, heavy, () -> {
             try {
-                translation.run();
+                try {
+                    translation.run();
+                } finally {
+                    input.release();
+                }
 
                 if (isShutdown) {
                     return;
                 }
 
+                if (slidingWindowEntry == null) {
+                    onTranslated.run();
+                    return;
+                }
+
                 synchronized (slidingWindow) {
                     slidingWindowEntry.setValue(onTranslated);
                     MutableObject<Runnable> entry;
                     while ((entry = slidingWindow.peek()) != null && entry.getValue() != null) {
                         //noinspection ConstantConditions
-                        slidingWindow.poll().getValue().run();
+                        deliver(channel, slidingWindow.poll().getValue());
+                        onLeaveWindow();
                     }
                 }
             } catch (Throwable e) {
-                e.printStackTrace();
-            } finally {
-                for (Class<?> read : readDependencies) {
-                    queue.finishedReadAccess(read);
-                }
-                for (Class<?> write : writeDependencies) {
-                    queue.finishedWriteAccess(write);
-                }
-            }
-        }));
-    }
-
-    public void shutdown() {
-        isShutdown = true;
-        executor.shutdownNow();
-    }
-
-    public CompletableFuture<Void> awaitTermination(long start) {
-        return CompletableFuture.completedFuture(null).thenRun(() -> {
-            long now = System.nanoTime();
-            try {
-                //noinspection ResultOfMethodCallIgnored
-                executor.awaitTermination(5_000_000_000L - (now - start), TimeUnit.NANOSECONDS);
-            } catch (InterruptedException e) {
-                // meh
+                LOGGER.error("Error in packet translation task", e);
             }
         });
-    }
-}
 
-final class ReadWriteBlockingQueue implements BlockingQueue<IHasPacket> {
-    private final List<IHasPacket> packets = new ArrayList<>();
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition canTake = lock.newCondition();
-    private final Set<Class<?>> writeAccesses = Sets.newIdentityHashSet();
-    private final Object2IntMap<Class<?>> readAccesses = new Object2IntOpenCustomHashMap<>(Util.identityHashStrategy());
-
-    public void finishedWriteAccess(Class<?> clazz) {
-        lock.lock();
-        try {
-            if (writeAccesses.remove(clazz)) {
-                canTake.signalAll(); // may potentially unblock multiple tasks, need to signal all
+        int granted = 0;
+        for (DependencyLock lock : readLocks) {
+            if (lock.acquire(task, false)) {
+                granted++;
             }
-        } finally {
-            lock.unlock();
         }
-    }
-
-    public void finishedReadAccess(Class<?> clazz) {
-        lock.lock();
-        try {
-            int result = readAccesses.mergeInt(clazz, -1, Integer::sum);
-            if (result < 0) {
-                throw new IllegalStateException("Unlocked a read access without locking it");
+        for (DependencyLock lock : writeLocks) {
+            if (lock.acquire(task, true)) {
+                granted++;
             }
-            if (result == 0) {
-                readAccesses.removeInt(clazz);
-                canTake.signal();
-            }
-        } finally {
-            lock.unlock();
+        }
+        // the extra count held during acquisition stops a lock released concurrently from dispatching the task early
+        if (task.grant(granted + 1)) {
+            dispatch(task);
         }
     }
 
-    @Override
-    public boolean add(@NotNull IHasPacket packet) {
-        return offer(packet);
+    private void deliver(Channel channel, Runnable onTranslated) {
+        // A translation which ran on the event loop must not overtake earlier deliveries from the thread pool, which
+        // are still queued on the event loop
+        if (heavyOnly && channel.eventLoop().inEventLoop()) {
+            channel.eventLoop().execute(onTranslated);
+        } else {
+            onTranslated.run();
+        }
     }
 
-    @Override
-    public boolean offer(@NotNull IHasPacket packet) {
-        lock.lock();
-        try {
-            packets.add(packet);
-            canTake.signal();
-        } finally {
-            lock.unlock();
+    private void onEnterWindow(Channel channel) {
+        int depth = windowDepth.incrementAndGet();
+        peakWindowDepth.accumulateAndGet(depth, Math::max);
+        if (!clientbound || depth < MAX_IN_FLIGHT_TRANSLATIONS || !channel.config().isAutoRead()) {
+            return;
         }
-        return true;
-    }
 
-    @Override
-    public IHasPacket remove() {
-        IHasPacket packet = poll();
-        if (packet == null) {
-            throw new NoSuchElementException();
+        channel.config().setAutoRead(false);
+        pausedChannel.set(channel);
+        backPressureCount.incrementAndGet();
+        // the window may have drained before the paused channel was visible to the translation threads
+        if (windowDepth.get() <= MAX_IN_FLIGHT_TRANSLATIONS / 2) {
+            resumeReading();
         }
-        return packet;
     }
 
-    @Override
-    public IHasPacket poll() {
-        lock.lock();
-        try {
-            IHasPacket element = peek();
-            if (element == null) {
-                return null;
-            }
-            packets.remove(element);
-            Collections.addAll(writeAccesses, element.writeDependencies());
-            for (Class<?> read : element.readDependencies()) {
-                readAccesses.mergeInt(read, 1, Integer::sum);
-            }
-            return element;
-        } finally {
-            lock.unlock();
+    private void onLeaveWindow() {
+        if (windowDepth.decrementAndGet() <= MAX_IN_FLIGHT_TRANSLATIONS / 2) {
+            resumeReading();
         }
     }
 
-    @Override
-    public IHasPacket element() {
-        IHasPacket element = peek();
-        if (element == null) {
-            throw new NoSuchElementException();
+    private void resumeReading() {
+        Channel channel = pausedChannel.getAndSet(null);
+        if (channel != null) {
+            channel.config().setAutoRead(true);
         }
-        return element;
     }
 
-    @Override
-    public IHasPacket peek() {
-        ObjectSet<Class<?>> readAccesses = new ObjectOpenCustomHashSet<>(this.readAccesses.keySet(), Util.identityHashStrategy());
-        ObjectSet<Class<?>> writeAccesses = new ObjectOpenCustomHashSet<>(this.writeAccesses, Util.identityHashStrategy());
-        lock.lock();
-        try {
-            for (IHasPacket packet : packets) {
-                continuePacketLoop: {
-                    for (Class<?> write : packet.writeDependencies()) {
-                        if (writeAccesses.contains(write) || readAccesses.contains(write)) {
-                            break continuePacketLoop;
-                        }
-                    }
-                    for (Class<?> read : packet.readDependencies()) {
-                        if (writeAccesses.contains(read)) {
-                            break continuePacketLoop;
-                        }
-                    }
-                    return packet;
-                }
-                Collections.addAll(readAccesses, packet.readDependencies());
-                Collections.addAll(writeAccesses, packet.writeDependencies());
-            }
-            return null;
-        } finally {
-            lock.unlock();
-        }
+    /**
+     * The number of translations which have been submitted but not yet delivered
+     */
+    public int getWindowDepth() {
+        return windowDepth.get();
     }
 
-    @Override
-    public void put(@NotNull IHasPacket packet) {
-        offer(packet);
+    public int getPeakWindowDepth() {
+        return peakWindowDepth.get();
     }
 
-    @Override
-    public boolean offer(IHasPacket packet, long timeout, @NotNull TimeUnit unit) {
-        return offer(packet);
+    /**
+     * The number of times reading from the channel has been paused because the window was full
+     */
+    public long getBackPressureCount() {
+        return backPressureCount.get();
     }
 
-    @NotNull
-    @Override
-    public IHasPacket take() throws InterruptedException {
-        lock.lockInterruptibly();
-        try {
-            IHasPacket packet;
-            while ((packet = poll()) == null) {
-                canTake.await();
-            }
-            return packet;
-        } finally {
-            lock.unlock();
-        }
+    public int getMaxWindowDepth() {
+        return MAX_IN_FLIGHT_TRANSLATIONS;
     }
 
-    @Nullable
-    @Override
-    public IHasPacket poll(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
-        lock.lockInterruptibly();
-        try {
-            IHasPacket packet;
-            long nanos = unit.toNanos(timeout);
-            while ((packet = poll()) == null) {
-                if (nanos <= 0) {
-                    return null;
-                }
-                nanos = canTake.awaitNanos(nanos);
+    private synchronized DependencyLock[] getDependencyLocks(Class<?>[] dependencies, DependencyLock @Nullable [] exclude) {
+        DependencyLock[] locks = new DependencyLock[dependencies.length];
+        int count = 0;
+        for (Class<?> dependency : dependencies) {
+            int index = dependencyIndices.get(dependency);
+            if (index >= dependencyLocks.length) {
+                dependencyLocks = Arrays.copyOf(dependencyLocks, Math.max(index + 1, dependencyLocks.length * 2));
+            }
+            DependencyLock lock = dependencyLocks[index];
+            if (lock == null) {
+                lock = dependencyLocks[index] = new DependencyLock();
+            }
+            // a task which writes a dependency already has exclusive access to it, don't let it wait on itself
+            if (!containsLock(exclude, lock)) {
+                locks[count++] = lock;
             }
-            return packet;
-        } finally {
-            lock.unlock();
         }
+        return count == locks.length ? locks : Arrays.copyOf(locks, count);
     }
 
-    @Override
-    public int remainingCapacity() {
-        return Integer.MAX_VALUE;
-    }
-
-    @Override
-    public boolean remove(Object o) {
-        throw new UnsupportedOperationException();
+    private static boolean containsLock(DependencyLock @Nullable [] locks, DependencyLock lock) {
+        if (locks == null) {
+            return false;
+        }
+        for (DependencyLock l : locks) {
+            if (l == lock) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    @Override
-    public boolean containsAll(@NotNull Collection<?> c) {
-        //noinspection SlowListContainsAll
-        return packets.containsAll(c);
+    private void dispatch(PendingTask task) {
+        while (task != null) {
+            if (heavyOnly && !task.heavy() && !isShutdown) {
+                task = task.runAndRelease();
+                continue;
+            }
+            if (!isShutdown) {
+                try {
+                    executor.execute(task);
+                    return;
+                } catch (RejectedExecutionException ignore) {
+                    // the executor was shut down concurrently, fall through and discard the task
+                }
+            }
+            task.input().release();
+            task = releaseDependencies(task);
+        }
     }
 
-    @Override
-    public boolean addAll(@NotNull Collection<? extends IHasPacket> c) {
-        for (IHasPacket packet : c) {
-            add(packet);
+    /**
+     * Releases the dependency locks held by the given task, dispatching any tasks this unblocks. Returns a task that
+     * still needs dispatching, if any, so that callers can avoid deep recursion when discarding tasks.
+     */
+    private PendingTask releaseDependencies(PendingTask task) {
+        List<PendingTask> granted = new ArrayList<>();
+        for (DependencyLock lock : task.readLocks()) {
+            lock.release(false, granted);
+        }
+        for (DependencyLock lock : task.writeLocks()) {
+            lock.release(true, granted);
         }
-        return !c.isEmpty();
-    }
 
-    @Override
-    public boolean removeAll(@NotNull Collection<?> c) {
-        throw new UnsupportedOperationException();
+        PendingTask next = null;
+        for (PendingTask grantedTask : granted) {
+            if (grantedTask.grant(1)) {
+                if (next != null) {
+                    dispatch(next);
+                }
+                next = grantedTask;
+            }
+        }
+        return next;
     }
 
-    @Override
-    public boolean retainAll(@NotNull Collection<?> c) {
-        throw new UnsupportedOperationException();
+    public void shutdown() {
+        isShutdown = true;
+        resumeReading();
+        for (Runnable pendingTask : executor.shutdownNow()) {
+            dispatch((PendingTask) pendingTask);
+        }
     }
 
-    @Override
-    public void clear() {
-        while (poll() != null);
+    public CompletableFuture<Void> awaitTermination(long start) {
+        return CompletableFuture.completedFuture(null).thenRun(() -> {
+            long now = System.nanoTime();
+            try {
+                //noinspection ResultOfMethodCallIgnored
+                executor.awaitTermination(5_000_000_000L - (now - start), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // meh
+            }
+        });
     }
 
-    @Override
-    public int size() {
-        return packets.size();
-    }
+    private final class PendingTask implements Runnable {
+        private final ByteBuf input;
+        private final DependencyLock[] readLocks;
+        private final DependencyLock[] writeLocks;
+        private final boolean heavy;
+        private final Runnable translation;
+        private final AtomicInteger remainingGrants;
+
+        PendingTask(ByteBuf input, DependencyLock[] readLocks, DependencyLock[] writeLocks, boolean heavy, Runnable translation) {
+            this.input = input;
+            this.readLocks = readLocks;
+            this.writeLocks = writeLocks;
+            this.heavy = heavy;
+            this.translation = translation;
+            this.remainingGrants = new AtomicInteger(readLocks.length + writeLocks.length + 1);
+        }
 
-    @Override
-    public boolean isEmpty() {
-        return packets.isEmpty();
-    }
+        ByteBuf input() {
+            return input;
+        }
 
-    @Override
-    public boolean contains(Object o) {
-        return packets.contains(o);
-    }
+        DependencyLock[] readLocks() {
+            return readLocks;
+        }
 
-    @NotNull
-    @Override
-    public Iterator<IHasPacket> iterator() {
-        throw new UnsupportedOperationException();
-    }
+        DependencyLock[] writeLocks() {
+            return writeLocks;
+        }
 
-    @NotNull
-    @Override
-    public Object @NotNull [] toArray() {
-        throw new UnsupportedOperationException();
-    }
+        boolean heavy() {
+            return heavy;
+        }
 
-    @NotNull
-    @Override
-    public <T> T @NotNull [] toArray(@NotNull T @NotNull [] a) {
-        throw new UnsupportedOperationException();
-    }
+        /**
+         * Returns whether this task has now been granted all its dependencies and is ready to run
+         */
+        boolean grant(int count) {
+            return remainingGrants.addAndGet(-count) == 0;
+        }
 
-    @Override
-    public int drainTo(@NotNull Collection<? super IHasPacket> c) {
-        throw new UnsupportedOperationException();
-    }
+        @Override
+        public void run() {
+            PendingTask next = runAndRelease();
+            if (next != null) {
+                dispatch(next);
+            }
+        }
 
-    @Override
-    public int drainTo(@NotNull Collection<? super IHasPacket> c, int maxElements) {
-        throw new UnsupportedOperationException();
+        /**
+         * Runs the translation on the current thread, and returns a task unblocked by it which still needs
+         * dispatching, if any
+         */
+        PendingTask runAndRelease() {
+            try {
+                translation.run();
+            } catch (Throwable e) {
+                // the translation already handles its own errors, this is only to keep the locks consistent
+                LOGGER.error("Packet translation failed", e);
+            }
+            return releaseDependencies(this);
+        }
     }
-}
 
-interface IHasPacket {
-    Class<?>[] readDependencies();
-    Class<?>[] writeDependencies();
-}
-
-record TranslationTask(Class<?>[] readDependencies, Class<?>[] writeDependencies, Runnable task) implements Runnable, IHasPacket {
-    @Override
-    public void run() {
-        task.run();
-    }
-}
+    /**
+     * A fair read/write lock on a single dependency, which queues tasks instead of blocking threads. Waiting tasks are
+     * granted in submission order, so a reader can't overtake an earlier writer or vice versa.
+     */
+    private static final class DependencyLock {
+        private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+        private int readers;
+        private boolean writing;
 
-record TranslationFutureTask<V>(RunnableFuture<V> delegate, Class<?>[] readDependencies, Class<?>[] writeDependencies) implements RunnableFuture<V>, IHasPacket {
-    @Override
-    public void run() {
-        delegate.run();
-    }
+        synchronized boolean acquire(PendingTask task, boolean write) {
+            if (waiting.isEmpty() && canAcquire(write)) {
+                doAcquire(write);
+                return true;
+            }
+            waiting.add(new Waiter(task, write));
+            return false;
+        }
 
-    @Override
-    public boolean cancel(boolean mayInterruptIfRunning) {
-        return delegate.cancel(mayInterruptIfRunning);
-    }
+        synchronized void release(boolean write, List<PendingTask> granted) {
+            if (write) {
+                writing = false;
+            } else if (--readers < 0) {
+                throw new IllegalStateException("Unlocked a read access without locking it");
+            }
 
-    @Override
-    public boolean isCancelled() {
-        return delegate.isCancelled();
-    }
+            Waiter next;
+            while ((next = waiting.peek()) != null && canAcquire(next.write())) {
+                waiting.poll();
+                doAcquire(next.write());
+                granted.add(next.task());
+            }
+        }
 
-    @Override
-    public boolean isDone() {
-        return delegate.isDone();
-    }
+        private boolean canAcquire(boolean write) {
+            return write ? !writing && readers == 0 : !writing;
+        }
 
-    @Override
-    public V get() throws InterruptedException, ExecutionException {
-        return delegate.get();
-    }
+        private void doAcquire(boolean write) {
+            if (write) {
+                writing = true;
+            } else {
+                readers++;
+            }
+        }
 
-    @Override
-    public V get(long timeout, @NotNull TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        return delegate.get(timeout, unit);
+        private record Waiter(PendingTask task, boolean write) {}
     }
 }
@@ -0,0 +1,182 @@
+package net.earthcomputer.multiconnect.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import net.earthcomputer.multiconnect.protocols.generic.AbstractProtocol;
+import net.earthcomputer.multiconnect.protocols.generic.DimensionTypeReference;
+import net.earthcomputer.multiconnect.protocols.generic.blockconnections.BlockConnector;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.DynamicRegistryManager;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The translation state of a single connection: the protocol being translated to, the global data of the generated
+ * translators, and the translation executors. The context is attached to the connection's Netty channel, which is where
+ * the translators look it up, so that several connections can be translated independently of each other.
+ *
+ * <p>The game's own connection uses {@link PacketSystem#getCurrentContext()}, which is attached to its channel when the
+ * translators are added. Other connections, such as headless clients, can attach their own context beforehand.
+ *
+ * <p>Translation functions can take the context as a {@code @GlobalData TranslationContext} parameter. They must use its
+ * protocol version, block connector and remaps rather than those of {@link ConnectionInfo}, which belong to the game's
+ * own connection. Translation itself doesn't depend on any state set up for the game's protocol, so contexts for
+ * different protocols can be attached to different channels at the same time. What does stay with the game's protocol
+ * is state the game uses when it handles the translated packets itself, such as the data tracker IDs of entities and
+ * the block collision boxes.
+ */
+public final class TranslationContext {
+    private static final AttributeKey<TranslationContext> KEY = AttributeKey.newInstance("multiconnect_translation_context");
+
+    private final int protocolVersion;
+    private final AbstractProtocol protocol;
+    // resolved once here, so that translation doesn't look the generated protocol up by version for every packet
+    private final GeneratedProtocol generatedProtocol;
+    // read and written by the translation threads as well as the netty thread, so must be concurrent
+    private final Map<Class<?>, Object> globalData = new ConcurrentHashMap<>();
+    @Nullable
+    private final ReadWritePacketExecutor clientboundExecutor;
+    @Nullable
+    private final ReadWritePacketExecutor serverboundExecutor;
+    @Nullable
+    private final PacketCapture capture;
+
+    public TranslationContext(
+            int protocolVersion,
+            AbstractProtocol protocol,
+            @Nullable ReadWritePacketExecutor clientboundExecutor,
+            @Nullable ReadWritePacketExecutor serverboundExecutor
+    ) {
+        this.protocolVersion = protocolVersion;
+        this.protocol = protocol;
+        this.generatedProtocol = PacketSystem.getProtocolClass(protocolVersion);
+        this.clientboundExecutor = clientboundExecutor;
+        this.serverboundExecutor = serverboundExecutor;
+        this.capture = PacketCapture.ENABLED ? new PacketCapture(protocolVersion) : null;
+        // lets handlers take the context as a @GlobalData parameter
+        globalData.put(TranslationContext.class, this);
+    }
+
+    /**
+     * Attaches the given context to the channel, unless it already has one
+     */
+    public static void attach(Channel channel, TranslationContext context) {
+        channel.attr(KEY).setIfAbsent(context);
+    }
+
+    @Nullable
+    public static TranslationContext get(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public AbstractProtocol getProtocol() {
+        return protocol;
+    }
+
+    GeneratedProtocol getGeneratedProtocol() {
+        return generatedProtocol;
+    }
+
+    public BlockConnector getBlockConnector() {
+        return protocol.getBlockConnector();
+    }
+
+    public Map<Class<?>, Object> getGlobalData() {
+        return globalData;
+    }
+
+    /**
+     * Sets up the built-in registries with the overworld as the current dimension, which is otherwise done by the game
+     * join packet. Lets chunks be translated without one, such as by the translator warm-up and the benchmarks.
+     */
+    public void setUpOverworld() {
+        globalData.put(DynamicRegistryManager.class, DynamicRegistryManager.createAndLoad().toImmutable());
+        globalData.put(DimensionTypeReference.class, new DimensionTypeReference(World.OVERWORLD.getValue()));
+    }
+
+    public int serverRawIdToClient(Registry<?> registry, int serverRawId) {
+        return PacketSystem.serverRawIdToClient(generatedProtocol, registry, serverRawId);
+    }
+
+    public int clientRawIdToServer(Registry<?> registry, int clientRawId) {
+        return PacketSystem.clientRawIdToServer(generatedProtocol, registry, clientRawId);
+    }
+
+    public Identifier serverIdToClient(Registry<?> registry, Identifier serverId) {
+        return PacketSystem.serverIdToClient(generatedProtocol, registry, serverId);
+    }
+
+    public Identifier clientIdToServer(Registry<?> registry, Identifier clientId) {
+        return PacketSystem.clientIdToServer(generatedProtocol, registry, clientId);
+    }
+
+    @Nullable
+    public Integer serverIdToRawId(Registry<?> registry, Identifier serverId) {
+        return PacketSystem.serverIdToRawId(generatedProtocol, registry, serverId);
+    }
+
+    @Nullable
+    public Identifier serverRawIdToId(Registry<?> registry, int serverRawId) {
+        return PacketSystem.serverRawIdToId(generatedProtocol, registry, serverRawId);
+    }
+
+    public int serverBlockStateIdToClient(int serverBlockStateId) {
+        return generatedProtocol.serverBlockStateIdToClient(serverBlockStateId);
+    }
+
+    public int clientBlockStateIdToServer(int clientBlockStateId) {
+        return generatedProtocol.clientBlockStateIdToServer(clientBlockStateId);
+    }
+
+    @Nullable
+    public ReadWritePacketExecutor getExecutor(boolean clientbound) {
+        return clientbound ? clientboundExecutor : serverboundExecutor;
+    }
+
+    /**
+     * Records the raw packet to this context's packet capture, if packet capture is enabled
+     */
+    public void capture(boolean clientbound, ByteBuf buf) {
+        if (capture != null) {
+            capture.capture(clientbound, buf);
+        }
+    }
+
+    /**
+     * Shuts down the executors of this context, waiting for the translations already submitted to them to finish
+     */
+    public void close() {
+        if (clientboundExecutor != null) {
+            clientboundExecutor.shutdown();
+        }
+        if (serverboundExecutor != null) {
+            serverboundExecutor.shutdown();
+        }
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(2);
+        if (clientboundExecutor != null) {
+            futures.add(clientboundExecutor.awaitTermination(start));
+        }
+        if (serverboundExecutor != null) {
+            futures.add(serverboundExecutor.awaitTermination(start));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        globalData.clear();
+        if (capture != null) {
+            capture.close();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package net.earthcomputer.multiconnect.impl;
+
+import io.netty.buffer.ByteBuf;
+import net.fabricmc.loader.api.FabricLoader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional per-packet-type instrumentation of packet translation, enabled with
+ * {@code -Dmulticonnect.translationMetrics=true}. Records counts, bytes in and out, and a latency histogram for each
+ * packet ID in each direction. Recording doesn't allocate once a packet ID has been seen.
+ */
+public final class TranslationMetrics {
+    private static final Logger LOGGER = LogManager.getLogger("multiconnect");
+
+    public static final boolean ENABLED = Boolean.getBoolean("multiconnect.translationMetrics");
+
+    private static final int MAX_PACKET_ID = 256;
+    private static final AtomicReferenceArray<PacketStats> clientboundStats = new AtomicReferenceArray<>(MAX_PACKET_ID);
+    private static final AtomicReferenceArray<PacketStats> serverboundStats = new AtomicReferenceArray<>(MAX_PACKET_ID);
+
+    private TranslationMetrics() {}
+
+    /**
+     * Wraps a translation so that it is recorded if metrics are enabled. The packet ID and input size must be taken
+     * with {@link #peekPacketId} and {@link ByteBuf#readableBytes()} before the packet ID is read for dispatch, and the
+     * output size is taken from {@code outBufs} when the translation ends.
+     */
+    public static Runnable wrap(boolean clientbound, int packetId, int bytesIn, List<ByteBuf> outBufs, Runnable translation) {
+        if (!ENABLED) {
+            return translation;
+        }
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                translation.run();
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                int bytesOut = 0;
+                for (ByteBuf outBuf : outBufs) {
+                    bytesOut += outBuf.readableBytes();
+                }
+                record(clientbound, packetId, bytesIn, bytesOut, elapsed);
+            }
+        };
+    }
+
+    /**
+     * Returns the packet ID at the reader index of the given buffer without moving the reader index, or -1 if metrics
+     * are disabled or the buffer doesn't start with a valid packet ID
+     */
+    public static int peekPacketId(ByteBuf buf) {
+        if (!ENABLED) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = 0; i < 5 && buf.readerIndex() + i < buf.writerIndex(); i++) {
+            byte b = buf.getByte(buf.readerIndex() + i);
+            result |= (b & 0x7f) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        return -1;
+    }
+
+    public static void record(boolean clientbound, int packetId, int bytesIn, int bytesOut, long elapsedNanos) {
+        if (packetId < 0 || packetId >= MAX_PACKET_ID) {
+            packetId = MAX_PACKET_ID - 1;
+        }
+        AtomicReferenceArray<PacketStats> stats = clientbound ? clientboundStats : serverboundStats;
+        PacketStats packetStats = stats.get(packetId);
+        if (packetStats == null) {
+            stats.compareAndSet(packetId, null, new PacketStats(clientbound, packetId));
+            packetStats = stats.get(packetId);
+        }
+        packetStats.record(bytesIn, bytesOut, elapsedNanos);
+    }
+
+    public static void reset() {
+        for (int i = 0; i < MAX_PACKET_ID; i++) {
+            clientboundStats.set(i, null);
+            serverboundStats.set(i, null);
+        }
+    }
+
+    private static List<PacketStats> getAllStats() {
+        List<PacketStats> result = new ArrayList<>();
+        for (AtomicReferenceArray<PacketStats> stats : List.of(clientboundStats, serverboundStats)) {
+            for (int i = 0; i < MAX_PACKET_ID; i++) {
+                PacketStats packetStats = stats.get(i);
+                if (packetStats != null) {
+                    result.add(packetStats);
+                }
+            }
+        }
+        result.sort(Comparator.comparingLong((PacketStats it) -> it.totalNanos.sum()).reversed());
+        return result;
+    }
+
+    public static void addDebugLines(List<String> lines) {
+        for (boolean clientbound : new boolean[] {true, false}) {
+            ReadWritePacketExecutor executor = PacketSystem.Internals.getTranslationExecutor(clientbound);
+            if (executor != null) {
+                lines.add(String.format("[multiconnect] %s window: %d/%d (peak %d, paused %dx)",
+                        clientbound ? "Clientbound" : "Serverbound",
+                        executor.getWindowDepth(),
+                        executor.getMaxWindowDepth(),
+                        executor.getPeakWindowDepth(),
+                        executor.getBackPressureCount()));
+            }
+        }
+
+        if (!ENABLED) {
+            return;
+        }
+        List<PacketStats> stats = getAllStats();
+        for (int i = 0; i < Math.min(3, stats.size()); i++) {
+            PacketStats packetStats = stats.get(i);
+            lines.add(String.format("[multiconnect] %s: %d pkts, %.1fms total, p50 %s, p99 %s",
+                    packetStats.getName(),
+                    packetStats.count.sum(),
+                    packetStats.totalNanos.sum() / 1_000_000.0,
+                    formatNanos(packetStats.getPercentile(0.5)),
+                    formatNanos(packetStats.getPercentile(0.99))));
+        }
+    }
+
+    public static void dump() {
+        if (!ENABLED) {
+            LOGGER.warn("Translation metrics are disabled, set -Dmulticonnect.translationMetrics=true to enable them");
+            return;
+        }
+        Path file = FabricLoader.getInstance().getGameDir().resolve("multiconnect-translation-metrics.csv");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("packet,count,bytesIn,bytesOut,totalNanos,p50Nanos,p90Nanos,p99Nanos,p999Nanos,maxNanos");
+            for (PacketStats packetStats : getAllStats()) {
+                writer.printf("%s,%d,%d,%d,%d,%d,%d,%d,%d,%d%n",
+                        packetStats.getName(),
+                        packetStats.count.sum(),
+                        packetStats.bytesIn.sum(),
+                        packetStats.bytesOut.sum(),
+                        packetStats.totalNanos.sum(),
+                        packetStats.getPercentile(0.5),
+                        packetStats.getPercentile(0.9),
+                        packetStats.getPercentile(0.99),
+                        packetStats.getPercentile(0.999),
+                        packetStats.getPercentile(1));
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to dump translation metrics", e);
+            return;
+        }
+        LOGGER.info("Dumped translation metrics to {}", file);
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return nanos / 1000 + "µs";
+        } else {
+            return String.format("%.1fms", nanos / 1_000_000.0);
+        }
+    }
+
+    private static final class PacketStats {
+        // Log-linear buckets with 4 sub-buckets per power of two, so each bucket is accurate to within 25%
+        private static final int NUM_BUCKETS = 256;
+
+        private final boolean clientbound;
+        private final int packetId;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLongArray latencyBuckets = new AtomicLongArray(NUM_BUCKETS);
+
+        PacketStats(boolean clientbound, int packetId) {
+            this.clientbound = clientbound;
+            this.packetId = packetId;
+        }
+
+        void record(int bytesIn, int bytesOut, long elapsedNanos) {
+            count.increment();
+            this.bytesIn.add(bytesIn);
+            this.bytesOut.add(bytesOut);
+            totalNanos.add(elapsedNanos);
+            latencyBuckets.incrementAndGet(getBucket(Math.max(0, elapsedNanos)));
+        }
+
+        String getName() {
+            return String.format("%s 0x%02x", clientbound ? "S" : "C", packetId);
+        }
+
+        /**
+         * Returns the upper bound of the bucket containing the given percentile, or 0 if nothing has been recorded
+         */
+        long getPercentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                total += latencyBuckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(total * percentile));
+            long seen = 0;
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                seen += latencyBuckets.get(i);
+                if (seen >= target) {
+                    return getBucketLowerBound(i + 1) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        private static int getBucket(long value) {
+            if (value < 4) {
+                return (int) value;
+            }
+            int shift = 61 - Long.numberOfLeadingZeros(value);
+            return (shift << 2) + (int) (value >>> shift);
+        }
+
+        private static long getBucketLowerBound(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int shift = (bucket >> 2) - 1;
+            if (shift >= 61) {
+                return Long.MAX_VALUE;
+            }
+            return (long) ((bucket & 3) + 4) << shift;
+        }
+    }
+}
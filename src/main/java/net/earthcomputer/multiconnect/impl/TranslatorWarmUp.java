@@ -0,0 +1,339 @@
+package net.earthcomputer.multiconnect.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.earthcomputer.multiconnect.connect.ConnectionMode;
+import net.earthcomputer.multiconnect.packets.ChunkData;
+import net.earthcomputer.multiconnect.packets.latest.ChunkData_Latest;
+import net.earthcomputer.multiconnect.packets.latest.SPacketChunkData_Latest;
+import net.earthcomputer.multiconnect.protocols.ProtocolRegistry;
+import net.earthcomputer.multiconnect.protocols.generic.TypedMap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.network.NetworkSide;
+import net.minecraft.network.NetworkState;
+import net.minecraft.network.Packet;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.c2s.play.ClientStatusC2SPacket;
+import net.minecraft.network.packet.c2s.play.HandSwingC2SPacket;
+import net.minecraft.network.packet.c2s.play.KeepAliveC2SPacket;
+import net.minecraft.network.packet.c2s.play.PlayerActionC2SPacket;
+import net.minecraft.network.packet.c2s.play.PlayerInteractBlockC2SPacket;
+import net.minecraft.network.packet.c2s.play.PlayerMoveC2SPacket;
+import net.minecraft.network.packet.c2s.play.UpdateSelectedSlotC2SPacket;
+import net.minecraft.util.Hand;
+import net.minecraft.util.hit.BlockHitResult;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.registry.Registry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exercises the translation code of the protocol being connected to on a background thread while the connection is
+ * being established, so that the parts of it that every session goes through have been compiled by the JIT by the time
+ * the first chunks arrive.
+ *
+ * <p>The serverbound translators are driven by a handful of common vanilla packets, which are written in the latest
+ * format just as the game would write them. Clientbound, only the packet ID dispatch is covered for every protocol. The
+ * generated packet readers are only driven by the packets recorded in {@code /protocol_data/packets/<protocol>.txt},
+ * which only exist for some protocols, so other protocols only warm up part of the clientbound translation a session
+ * goes through. The recordings include chunks, entity spawns and metadata, and inventories. Chunks are also warmed up
+ * for every protocol by running the chunk translator's block state remapping and block connection fixing on generated
+ * sections, without going through the generated reader of the chunk packet. The warm-up translates on a context of its
+ * own, so that it doesn't disturb the global data of the real connection.
+ *
+ * <p>The number of iterations can be set with {@code -Dmulticonnect.warmUpIterations}.
+ */
+public final class TranslatorWarmUp {
+    private static final Logger LOGGER = LogManager.getLogger("multiconnect");
+
+    // the default is comfortably above the invocation and back-edge thresholds for C2 compilation
+    private static final int ITERATIONS = Integer.getInteger("multiconnect.warmUpIterations", 20_000);
+    private static final int CHUNKS = 50;
+    private static final int SECTIONS_PER_CHUNK = 16;
+
+    // incremented to cancel the running warm-up
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    private TranslatorWarmUp() {}
+
+    public static boolean isEnabled() {
+        return MulticonnectConfig.INSTANCE.warmUpTranslators != Boolean.FALSE;
+    }
+
+    public static void start(int protocol) {
+        if (protocol == SharedConstants.getGameVersion().getProtocolVersion() || !ConnectionMode.isSupportedProtocol(protocol)) {
+            return;
+        }
+        int gen = generation.incrementAndGet();
+        Thread thread = new Thread(() -> run(protocol, gen), "multiconnect warm-up");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    public static void cancel() {
+        generation.incrementAndGet();
+    }
+
+    private static void run(int protocol, int gen) {
+        long start = System.nanoTime();
+        TranslationContext context = new TranslationContext(protocol, ProtocolRegistry.get(protocol), null, null);
+        int numRecorded;
+        int numServerbound;
+        try {
+            context.setUpOverworld();
+            warmUpPacketDispatch(context, gen);
+            numRecorded = warmUpSenders(context, true, readRecordedPackets(protocol), gen);
+            numServerbound = warmUpSenders(context, false, createServerboundPackets(), gen);
+            warmUpRegistries(context, gen);
+            warmUpChunks(context, gen);
+        } catch (CancellationException e) {
+            LOGGER.info("Translator warm-up for {} cancelled after {}ms", ConnectionMode.byValue(protocol).getName(), (System.nanoTime() - start) / 1_000_000);
+            return;
+        } catch (Throwable e) {
+            LOGGER.warn("Translator warm-up for " + ConnectionMode.byValue(protocol).getName() + " failed", e);
+            return;
+        } finally {
+            context.close();
+        }
+        LOGGER.info("Warmed up packet dispatch, {} recorded packets, {} serverbound packets and chunk remapping for {} in {}ms", numRecorded, numServerbound, ConnectionMode.byValue(protocol).getName(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void checkCancelled(int gen) {
+        if (generation.get() != gen) {
+            throw new CancellationException();
+        }
+    }
+
+    private static void warmUpPacketDispatch(TranslationContext context, int gen) {
+        ByteBuf buf = Unpooled.buffer(5);
+        try {
+            for (boolean clientbound : new boolean[] {true, false}) {
+                // find the valid packet IDs first, the translators throw on the others
+                IntList packetIds = new IntArrayList();
+                for (int packetId = 0; packetId < 256; packetId++) {
+                    try {
+                        dispatch(context, clientbound, buf, packetId);
+                        packetIds.add(packetId);
+                    } catch (IllegalArgumentException ignore) {
+                    }
+                }
+                if (packetIds.isEmpty()) {
+                    continue;
+                }
+                for (int i = 0; i < ITERATIONS; i++) {
+                    dispatch(context, clientbound, buf, packetIds.getInt(i % packetIds.size()));
+                }
+                checkCancelled(gen);
+            }
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static void dispatch(TranslationContext context, boolean clientbound, ByteBuf buf, int packetId) {
+        buf.clear();
+        PacketIntrinsics.writeVarInt(buf, packetId);
+        if (clientbound) {
+            PacketSystem.Internals.translateSPacket(context, buf);
+        } else {
+            PacketSystem.Internals.translateCPacket(context, buf);
+        }
+    }
+
+    /**
+     * Returns the number of the packets which could be translated, and so were warmed up
+     */
+    private static int warmUpSenders(TranslationContext context, boolean clientbound, List<byte[]> packets, int gen) {
+        List<ByteBuf> outBufs = new ArrayList<>(1);
+        // drop the packets that can't be translated without a real connection, such as those handled by the client
+        List<byte[]> translatable = new ArrayList<>(packets.size());
+        for (byte[] packet : packets) {
+            try {
+                translate(context, clientbound, packet, outBufs);
+                translatable.add(packet);
+            } catch (RuntimeException ignore) {
+            }
+        }
+        if (translatable.isEmpty()) {
+            return 0;
+        }
+        for (int i = 0; i < ITERATIONS; i++) {
+            translate(context, clientbound, translatable.get(i % translatable.size()), outBufs);
+            // the recordings include chunks, so check more often than once per stage
+            if (i % 1000 == 999) {
+                checkCancelled(gen);
+            }
+        }
+        checkCancelled(gen);
+        return translatable.size();
+    }
+
+    private static void translate(TranslationContext context, boolean clientbound, byte[] packet, List<ByteBuf> outBufs) {
+        ByteBuf buf = Unpooled.wrappedBuffer(packet);
+        try {
+            var result = clientbound
+                    ? PacketSystem.Internals.translateSPacket(context, buf)
+                    : PacketSystem.Internals.translateCPacket(context, buf);
+            result.sender().send(buf, outBufs, null, context.getGlobalData(), new TypedMap());
+        } finally {
+            for (ByteBuf outBuf : outBufs) {
+                outBuf.release();
+            }
+            outBufs.clear();
+            buf.release();
+        }
+    }
+
+    private static List<byte[]> readRecordedPackets(int protocol) throws IOException {
+        InputStream in = TranslatorWarmUp.class.getResourceAsStream("/protocol_data/packets/" + protocol + ".txt");
+        if (in == null) {
+            return List.of();
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(line -> Base64.getDecoder().decode(line))
+                    .toList();
+        }
+    }
+
+    private static List<byte[]> createServerboundPackets() {
+        List<Packet<?>> packets = List.of(
+                new KeepAliveC2SPacket(0),
+                new PlayerMoveC2SPacket.Full(0.5, 64, 0.5, 90, 0, true),
+                new PlayerMoveC2SPacket.PositionAndOnGround(0.5, 64, 0.5, true),
+                new PlayerMoveC2SPacket.LookAndOnGround(90, 0, true),
+                new PlayerMoveC2SPacket.OnGroundOnly(true),
+                new HandSwingC2SPacket(Hand.MAIN_HAND),
+                new UpdateSelectedSlotC2SPacket(0),
+                new PlayerActionC2SPacket(PlayerActionC2SPacket.Action.START_DESTROY_BLOCK, BlockPos.ORIGIN, Direction.UP, 0),
+                new PlayerInteractBlockC2SPacket(Hand.MAIN_HAND, new BlockHitResult(Vec3d.ofCenter(BlockPos.ORIGIN), Direction.UP, BlockPos.ORIGIN, false), 0),
+                new ClientStatusC2SPacket(ClientStatusC2SPacket.Mode.REQUEST_STATS)
+        );
+        List<byte[]> result = new ArrayList<>(packets.size());
+        for (Packet<?> packet : packets) {
+            Integer packetId = NetworkState.PLAY.getPacketId(NetworkSide.SERVERBOUND, packet);
+            if (packetId == null) {
+                continue;
+            }
+            PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+            try {
+                buf.writeVarInt(packetId);
+                packet.write(buf);
+                byte[] bytes = new byte[buf.readableBytes()];
+                buf.readBytes(bytes);
+                result.add(bytes);
+            } finally {
+                buf.release();
+            }
+        }
+        return result;
+    }
+
+    private static void warmUpRegistries(TranslationContext context, int gen) {
+        for (Registry<?> registry : Registry.REGISTRIES) {
+            int size = registry.size();
+            if (size == 0) {
+                continue;
+            }
+            try {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    int id = i % size;
+                    context.serverRawIdToClient(registry, id);
+                    context.clientRawIdToServer(registry, id);
+                }
+            } catch (RuntimeException ignore) {
+                // some IDs don't exist on the other side, we've warmed up as much as we can of this registry
+            }
+            checkCancelled(gen);
+        }
+
+        int numStates = Block.STATE_IDS.size();
+        try {
+            for (int i = 0; i < Math.max(ITERATIONS, numStates); i++) {
+                int stateId = i % numStates;
+                context.serverBlockStateIdToClient(stateId);
+                context.clientBlockStateIdToServer(stateId);
+            }
+        } catch (RuntimeException ignore) {
+        }
+        checkCancelled(gen);
+    }
+
+    private static void warmUpChunks(TranslationContext context, int gen) {
+        // the server's IDs of our block states, the chunk translator maps them back
+        IntList serverStateIds = new IntArrayList();
+        for (int stateId = 0; stateId < Block.STATE_IDS.size(); stateId++) {
+            try {
+                int serverStateId = context.clientBlockStateIdToServer(stateId);
+                if (serverStateId >= 0) {
+                    serverStateIds.add(serverStateId);
+                }
+            } catch (RuntimeException ignore) {
+                // the server doesn't have this block state
+            }
+        }
+        if (serverStateIds.isEmpty()) {
+            return;
+        }
+        int registryBits = MathHelper.ceilLog2(serverStateIds.intStream().max().orElse(0) + 1);
+        Random rand = new Random(0);
+        int[] values = new int[4096];
+
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            List<ChunkData.Section> sections = new ArrayList<>(SECTIONS_PER_CHUNK);
+            for (int i = 0; i < SECTIONS_PER_CHUNK; i++) {
+                var section = new ChunkData_Latest.ChunkSection();
+                // most sections arrive with a palette, but those with many different states use the registry directly
+                if (i % 4 != 0) {
+                    var blockStates = new ChunkData_Latest.BlockStatePalettedContainer.Multiple();
+                    blockStates.paletteSize = 4;
+                    blockStates.palette = new int[16];
+                    for (int j = 0; j < blockStates.palette.length; j++) {
+                        blockStates.palette[j] = serverStateIds.getInt(rand.nextInt(serverStateIds.size()));
+                    }
+                    for (int j = 0; j < 4096; j++) {
+                        values[j] = rand.nextInt(blockStates.palette.length);
+                    }
+                    blockStates.data = Utils.packIntegerArray(values, 4);
+                    section.blockStates = blockStates;
+                } else {
+                    var blockStates = new ChunkData_Latest.BlockStatePalettedContainer.RegistryContainer();
+                    blockStates.paletteSize = (byte) registryBits;
+                    for (int j = 0; j < 4096; j++) {
+                        values[j] = serverStateIds.getInt(rand.nextInt(serverStateIds.size()));
+                    }
+                    blockStates.data = Utils.packIntegerArray(values, registryBits);
+                    section.blockStates = blockStates;
+                }
+                sections.add(section);
+            }
+            try {
+                SPacketChunkData_Latest.InnerData.translateSections(context, 0, sections);
+            } catch (RuntimeException ignore) {
+                // hit a state which doesn't map back, carry on with the next chunk
+            }
+            checkCancelled(gen);
+        }
+    }
+}
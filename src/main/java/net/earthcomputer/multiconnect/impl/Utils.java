@@ -2,6 +2,7 @@ package net.earthcomputer.multiconnect.impl;
 
 import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import net.earthcomputer.multiconnect.api.ThreadSafe;
 import net.earthcomputer.multiconnect.api.IProtocol;
 import net.earthcomputer.multiconnect.connect.ConnectionMode;
@@ -26,6 +27,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
 
 public class Utils {
     public static boolean isChunkEmpty(WorldChunk chunk) {
@@ -139,6 +141,65 @@ public class Utils {
         }
     }
 
+    /**
+     * Remaps every element of a packed integer array (in the 1.16+ format, where elements don't span multiple longs),
+     * and repacks the result with a possibly different number of bits per element. Each distinct value is only passed to
+     * the remapper once. Missing longs at the end of {@code data} are treated as zeros.
+     */
+    public static long[] remapPackedIntegerArray(long[] data, int fromBits, int toBits, int size, IntUnaryOperator remapper) {
+        int[] values = new int[size];
+        unpackIntegerArray(data, fromBits, values);
+
+        Int2IntOpenHashMap memo = new Int2IntOpenHashMap();
+        int prevFrom = values[0];
+        int prevTo = remapper.applyAsInt(prevFrom);
+        memo.put(prevFrom, prevTo);
+        for (int i = 0; i < size; i++) {
+            int from = values[i];
+            if (from != prevFrom) {
+                prevFrom = from;
+                prevTo = memo.computeIfAbsent(from, remapper);
+            }
+            values[i] = prevTo;
+        }
+
+        return packIntegerArray(values, toBits);
+    }
+
+    /**
+     * Unpacks a 1.16+ packed integer array (where elements don't span multiple longs) into {@code out}. A bit width of
+     * zero or less unpacks to all zeros, and missing longs are treated as zero.
+     */
+    public static void unpackIntegerArray(long[] data, int bits, int[] out) {
+        if (bits <= 0) {
+            Arrays.fill(out, 0);
+            return;
+        }
+        int perLong = 64 / bits;
+        long mask = (1L << bits) - 1;
+        int index = 0;
+        for (int i = 0; i < data.length && index < out.length; i++) {
+            long word = data[i];
+            for (int j = 0; j < perLong && index < out.length; j++) {
+                out[index++] = (int) (word & mask);
+                word >>>= bits;
+            }
+        }
+        if (index < out.length) {
+            Arrays.fill(out, index, out.length, 0);
+        }
+    }
+
+    public static long[] packIntegerArray(int[] values, int bits) {
+        int perLong = 64 / bits;
+        long mask = (1L << bits) - 1;
+        long[] result = new long[getExpectedPackedIntegerArraySize(bits, values.length)];
+        for (int i = 0; i < values.length; i++) {
+            result[i / perLong] |= (values[i] & mask) << ((i % perLong) * bits);
+        }
+        return result;
+    }
+
     private static final ScheduledExecutorService AUTO_CACHE_CLEAN_EXECUTOR = Executors.newScheduledThreadPool(1);
     private static final Cleaner AUTO_CACHE_CLEANER = Cleaner.create();
     public static void autoCleanUp(Cache<?, ?> cache, long time, TimeUnit timeUnit) {
@@ -0,0 +1,11 @@
+package net.earthcomputer.multiconnect.mixin.bridge;
+
+import net.minecraft.block.AbstractBlock;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(AbstractBlock.class)
+public interface AbstractBlockAccessor {
+    @Accessor
+    float getResistance();
+}
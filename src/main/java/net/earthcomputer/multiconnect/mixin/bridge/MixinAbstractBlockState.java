@@ -2,9 +2,11 @@ package net.earthcomputer.multiconnect.mixin.bridge;
 
 import net.earthcomputer.multiconnect.impl.ConnectionInfo;
 import net.minecraft.block.AbstractBlock;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
@@ -13,8 +15,19 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 public abstract class MixinAbstractBlockState {
     @Shadow protected abstract BlockState asBlockState();
 
+    @Unique private int multiconnect_rawId = -1;
+
     @Inject(method = "getHardness", at = @At("RETURN"), cancellable = true)
     private void modifyHardness(CallbackInfoReturnable<Float> ci) {
-        ci.setReturnValue(ConnectionInfo.protocol.getBlockHardness(this.asBlockState(), ci.getReturnValueF()));
+        float[] hardnesses = ConnectionInfo.protocol.getBlockHardnessTable();
+        int rawId = multiconnect_rawId;
+        if (rawId == -1) {
+            rawId = multiconnect_rawId = Block.getRawIdFromState(this.asBlockState());
+        }
+        if (hardnesses != null && rawId >= 0 && rawId < hardnesses.length) {
+            ci.setReturnValue(hardnesses[rawId]);
+        } else {
+            ci.setReturnValue(ConnectionInfo.protocol.getBlockHardness(this.asBlockState(), ci.getReturnValueF()));
+        }
     }
 }
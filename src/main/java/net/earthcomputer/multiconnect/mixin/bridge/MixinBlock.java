@@ -2,15 +2,28 @@ package net.earthcomputer.multiconnect.mixin.bridge;
 
 import net.earthcomputer.multiconnect.impl.ConnectionInfo;
 import net.minecraft.block.Block;
+import net.minecraft.util.registry.Registry;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(Block.class)
 public class MixinBlock {
+    @Unique private int multiconnect_rawId = -1;
+
     @Inject(method = "getBlastResistance", at = @At("RETURN"), cancellable = true)
     private void modifyBlastResistance(CallbackInfoReturnable<Float> ci) {
-        ci.setReturnValue(ConnectionInfo.protocol.getBlockResistance((Block) (Object) this, ci.getReturnValueF()));
+        float[] resistances = ConnectionInfo.protocol.getBlockResistanceTable();
+        int rawId = multiconnect_rawId;
+        if (rawId == -1) {
+            rawId = multiconnect_rawId = Registry.BLOCK.getRawId((Block) (Object) this);
+        }
+        if (resistances != null && rawId >= 0 && rawId < resistances.length) {
+            ci.setReturnValue(resistances[rawId]);
+        } else {
+            ci.setReturnValue(ConnectionInfo.protocol.getBlockResistance((Block) (Object) this, ci.getReturnValueF()));
+        }
     }
 }
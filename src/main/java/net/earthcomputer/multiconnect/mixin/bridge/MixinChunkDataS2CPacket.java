@@ -0,0 +1,22 @@
+package net.earthcomputer.multiconnect.mixin.bridge;
+
+import net.earthcomputer.multiconnect.protocols.generic.IUserDataHolder;
+import net.earthcomputer.multiconnect.protocols.generic.TypedMap;
+import net.minecraft.network.packet.s2c.play.ChunkDataS2CPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(ChunkDataS2CPacket.class)
+public class MixinChunkDataS2CPacket implements IUserDataHolder {
+    @Unique private TypedMap userData;
+
+    @Override
+    public TypedMap multiconnect_getUserData() {
+        return userData;
+    }
+
+    @Override
+    public void multiconnect_setUserData(TypedMap userData) {
+        this.userData = userData;
+    }
+}
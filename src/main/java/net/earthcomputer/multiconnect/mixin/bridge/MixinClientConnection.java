@@ -6,7 +6,9 @@ import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import net.earthcomputer.multiconnect.api.ThreadSafe;
 import net.earthcomputer.multiconnect.impl.DebugUtils;
+import net.earthcomputer.multiconnect.impl.PacketSystem;
 import net.earthcomputer.multiconnect.impl.TestingAPI;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.protocols.generic.CustomPayloadHandler;
 import net.earthcomputer.multiconnect.protocols.generic.MulticonnectClientboundTranslator;
 import net.earthcomputer.multiconnect.protocols.generic.MulticonnectServerboundTranslator;
@@ -37,6 +39,10 @@ public abstract class MixinClientConnection {
     private void onSetState(NetworkState state, CallbackInfo ci) {
         // Singleplayer doesnt include encoding
         if (state == NetworkState.PLAY && !MinecraftClient.getInstance().isIntegratedServerRunning() && !DebugUtils.SKIP_TRANSLATION) {
+            TranslationContext context = PacketSystem.getCurrentContext();
+            if (context != null) {
+                TranslationContext.attach(channel, context);
+            }
             channel.pipeline().addBefore("encoder", "multiconnect_serverbound_translator", new MulticonnectServerboundTranslator());
             channel.pipeline().addBefore("decoder", "multiconnect_clientbound_translator", new MulticonnectClientboundTranslator());
         } else {
@@ -71,13 +71,13 @@ public class MixinClientPlayNetworkHandler {
                     Chunk neighborChunk = world.getChunk(x + side.getOffsetX(),
                             z + side.getOffsetZ(), ChunkStatus.FULL, false);
                     if (neighborChunk != null) {
-                        chunkConnector.onNeighborChunkLoaded(side);
                         ChunkConnector neighborConnector = ((IBlockConnectableChunk) neighborChunk).multiconnect_getChunkConnector();
                         if (neighborConnector != null) {
                             neighborConnector.onNeighborChunkLoaded(side.getOpposite());
                         }
                     }
                 }
+                chunkConnector.onNeighborChunksLoaded();
             }
         }
 
@@ -16,6 +16,6 @@ import java.util.List;
 public class MixinDecoderHandler {
     @Inject(method = "decode", at = @At(value = "INVOKE", target = "Ljava/util/List;add(Ljava/lang/Object;)Z", shift = At.Shift.AFTER, remap = false))
     private void onAddPacket(ChannelHandlerContext ctx, ByteBuf buf, List<Object> outPackets, CallbackInfo ci) {
-        PacketSystem.Internals.setUserData((Packet<?>) outPackets.get(outPackets.size() - 1), PacketSystem.Internals.getUserData(buf));
+        PacketSystem.Internals.onPacketDecoded(ctx.channel(), (Packet<?>) outPackets.get(outPackets.size() - 1));
     }
 }
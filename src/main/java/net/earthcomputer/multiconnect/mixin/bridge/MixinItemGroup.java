@@ -11,6 +11,7 @@ import org.spongepowered.asm.mixin.injection.ModifyVariable;
 import org.spongepowered.asm.mixin.injection.Slice;
 
 import java.util.Iterator;
+import java.util.function.Predicate;
 
 @Mixin(ItemGroup.class)
 public class MixinItemGroup {
@@ -19,6 +20,7 @@ public class MixinItemGroup {
             slice = @Slice(from = @At(value = "FIELD", target = "Lnet/minecraft/util/registry/Registry;ITEM:Lnet/minecraft/util/registry/DefaultedRegistry;", ordinal = 0)),
             ordinal = 0)
     private Iterator<Item> modifyItemIterator(Iterator<Item> itr) {
-        return Iterators.filter(itr, item -> MultiConnectAPI.instance().doesServerKnow(Registry.ITEM, item));
+        Predicate<Item> knownItems = MultiConnectAPI.instance().getServerKnownPredicate(Registry.ITEM);
+        return Iterators.filter(itr, knownItems::test);
     }
 }
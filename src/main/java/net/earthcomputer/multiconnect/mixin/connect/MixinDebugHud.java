@@ -2,6 +2,7 @@ package net.earthcomputer.multiconnect.mixin.connect;
 
 import net.earthcomputer.multiconnect.connect.ConnectionMode;
 import net.earthcomputer.multiconnect.impl.ConnectionInfo;
+import net.earthcomputer.multiconnect.impl.TranslationMetrics;
 import net.minecraft.client.gui.hud.DebugHud;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -15,5 +16,6 @@ public class MixinDebugHud {
     @Inject(method = "getLeftText", at = @At("RETURN"))
     private void addServerVersion(CallbackInfoReturnable<List<String>> ci) {
         ci.getReturnValue().add("[multiconnect] Server version: " + ConnectionMode.byValue(ConnectionInfo.protocolVersion).getName() + " (" + ConnectionInfo.protocolVersion + ")");
+        TranslationMetrics.addDebugLines(ci.getReturnValue());
     }
 }
@@ -2,10 +2,11 @@ package net.earthcomputer.multiconnect.packets;
 
 import it.unimi.dsi.fastutil.longs.LongList;
 import net.earthcomputer.multiconnect.ap.CustomFix;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
 import net.earthcomputer.multiconnect.ap.Type;
 import net.earthcomputer.multiconnect.ap.Types;
-import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 
 @MessageVariant
 public class SPacketChunkDeltaUpdate {
@@ -15,10 +16,10 @@ public class SPacketChunkDeltaUpdate {
     @CustomFix("fixBlocks")
     public LongList blocks;
 
-    public static LongList fixBlocks(LongList blocks) {
+    public static LongList fixBlocks(LongList blocks, @GlobalData TranslationContext context) {
         for (int i = 0; i < blocks.size(); i++) {
             long block = blocks.getLong(i);
-            long newBlock = (block & 4095) | ((long) PacketSystem.serverBlockStateIdToClient((int) (block >>> 12)) << 12);
+            long newBlock = (block & 4095) | ((long) context.serverBlockStateIdToClient((int) (block >>> 12)) << 12);
             blocks.set(i, newBlock);
         }
         return blocks;
@@ -2,6 +2,7 @@ package net.earthcomputer.multiconnect.packets;
 
 import it.unimi.dsi.fastutil.ints.IntList;
 import net.earthcomputer.multiconnect.ap.Argument;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Introduce;
 import net.earthcomputer.multiconnect.ap.Message;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
@@ -13,7 +14,7 @@ import net.earthcomputer.multiconnect.ap.Registry;
 import net.earthcomputer.multiconnect.ap.Type;
 import net.earthcomputer.multiconnect.ap.Types;
 import net.earthcomputer.multiconnect.api.Protocols;
-import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.minecraft.util.Identifier;
 
 import java.util.List;
@@ -100,8 +101,8 @@ public class SPacketCommandTree {
         @Introduce(compute = "computeParser")
         public int parser;
 
-        public static int computeParser(@Argument("parser") Identifier parser) {
-            Integer rawId = PacketSystem.serverIdToRawId(net.minecraft.util.registry.Registry.COMMAND_ARGUMENT_TYPE, parser);
+        public static int computeParser(@Argument("parser") Identifier parser, @GlobalData TranslationContext context) {
+            Integer rawId = context.serverIdToRawId(net.minecraft.util.registry.Registry.COMMAND_ARGUMENT_TYPE, parser);
             return rawId == null ? 0 : rawId;
         }
     }
@@ -4,12 +4,13 @@ import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.Datafix;
 import net.earthcomputer.multiconnect.ap.DatafixTypes;
 import net.earthcomputer.multiconnect.ap.FilledArgument;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Introduce;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
 import net.earthcomputer.multiconnect.ap.Registries;
 import net.earthcomputer.multiconnect.ap.Registry;
 import net.earthcomputer.multiconnect.api.Protocols;
-import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.packets.CommonTypes;
 import net.earthcomputer.multiconnect.packets.SPacketBlockEntityUpdate;
 import net.minecraft.nbt.NbtCompound;
@@ -60,12 +61,13 @@ public class SPacketBlockEntityUpdate_Latest implements SPacketBlockEntityUpdate
 
     public static void preprocessBlockEntityData(
             NbtCompound data,
-            @Argument("blockEntityType") int blockEntityType
+            @Argument("blockEntityType") int blockEntityType,
+            @GlobalData TranslationContext context
     ) {
         if (data == null) {
             return;
         }
-        Identifier name = PacketSystem.serverRawIdToId(net.minecraft.util.registry.Registry.BLOCK_ENTITY_TYPE, blockEntityType);
+        Identifier name = context.serverRawIdToId(net.minecraft.util.registry.Registry.BLOCK_ENTITY_TYPE, blockEntityType);
         if (name != null) {
             data.putString("id", name.toString());
         }
@@ -4,7 +4,6 @@ import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
-import it.unimi.dsi.fastutil.ints.IntSet;
 import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.CustomFix;
 import net.earthcomputer.multiconnect.ap.Datafix;
@@ -20,8 +19,7 @@ import net.earthcomputer.multiconnect.ap.Registry;
 import net.earthcomputer.multiconnect.ap.Type;
 import net.earthcomputer.multiconnect.ap.Types;
 import net.earthcomputer.multiconnect.api.Protocols;
-import net.earthcomputer.multiconnect.impl.ConnectionInfo;
-import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.impl.Utils;
 import net.earthcomputer.multiconnect.packets.ChunkData;
 import net.earthcomputer.multiconnect.packets.SPacketChunkData;
@@ -35,11 +33,11 @@ import net.earthcomputer.multiconnect.protocols.v1_17_1.Protocol_1_17_1;
 import net.minecraft.block.Block;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.util.Identifier;
-import net.minecraft.util.collection.PackedIntegerArray;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.EightWayDirection;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.registry.DynamicRegistryManager;
+import net.minecraft.world.biome.Biome;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -66,7 +64,8 @@ public class SPacketChunkData_Latest implements SPacketChunkData {
             @Argument("blockEntities") List<NbtCompound> blockEntities,
             @DefaultConstruct InnerData dest,
             @GlobalData DynamicRegistryManager registryManager,
-            @GlobalData DimensionTypeReference dimensionType
+            @GlobalData DimensionTypeReference dimensionType,
+            @GlobalData TranslationContext context
     ) {
         dest.heightmaps = heightmaps;
 
@@ -75,6 +74,10 @@ public class SPacketChunkData_Latest implements SPacketChunkData {
         List<ChunkData.Section> destSections = new ArrayList<>(fromSections.size());
         ((ChunkData_Latest) dest.data).sections = destSections;
         int numSections = dimensionType.getValue(registryManager).height() >> 4;
+        var biomeRegistry = registryManager.get(net.minecraft.util.registry.Registry.BIOME_KEY);
+        Int2IntMap invBiomePalette = new Int2IntOpenHashMap();
+        IntList biomePalette = new IntArrayList();
+        computeBiomePalette(biomeRegistry, biomes, invBiomePalette, biomePalette);
         int i = 0;
         for (int sectionY = 0; sectionY < numSections; sectionY++) {
             if (verticalStripBitmask.get(sectionY)) {
@@ -107,14 +110,14 @@ public class SPacketChunkData_Latest implements SPacketChunkData {
                     throw new IllegalStateException("Illegal subtype of BlockStatePalettedContainer");
                 }
 
-                computeBiomeData(sectionY, registryManager, biomes, toSection);
+                computeBiomeData(sectionY, biomeRegistry, biomes, invBiomePalette, biomePalette, toSection);
                 destSections.add(toSection);
             } else {
                 var toSection = new ChunkData_Latest.ChunkSection();
                 var toStates = new ChunkData_Latest.BlockStatePalettedContainer.Singleton();
                 toStates.dummyData = new long[0];
                 toSection.blockStates = toStates;
-                computeBiomeData(sectionY, registryManager, biomes, toSection);
+                computeBiomeData(sectionY, biomeRegistry, biomes, invBiomePalette, biomePalette, toSection);
                 destSections.add(toSection);
             }
         }
@@ -127,7 +130,7 @@ public class SPacketChunkData_Latest implements SPacketChunkData {
             destBe.y = (short) be.getInt("y");
             Identifier id = Identifier.tryParse(be.getString("id"));
             if (id != null) {
-                Integer rawId = PacketSystem.serverIdToRawId(net.minecraft.util.registry.Registry.BLOCK_ENTITY_TYPE, id);
+                Integer rawId = context.serverIdToRawId(net.minecraft.util.registry.Registry.BLOCK_ENTITY_TYPE, id);
                 if (rawId != null) {
                     destBe.type = rawId;
                 }
@@ -139,15 +142,13 @@ public class SPacketChunkData_Latest implements SPacketChunkData {
         return dest;
     }
 
-    private static void computeBiomeData(
-            int sectionY,
-            DynamicRegistryManager registryManager,
+    // the palette covers the whole column, so is only computed once per chunk rather than once per section
+    private static void computeBiomePalette(
+            net.minecraft.util.registry.Registry<Biome> biomeRegistry,
             IntList biomes,
-            ChunkData_Latest.ChunkSection toSection
+            Int2IntMap invBiomePalette,
+            IntList biomePalette
     ) {
-        var biomeRegistry = registryManager.get(net.minecraft.util.registry.Registry.BIOME_KEY);
-        Int2IntMap invBiomePalette = new Int2IntOpenHashMap();
-        IntList biomePalette = new IntArrayList();
         for (int i = 0; i < biomes.size(); i++) {
             int biome = Protocol_1_17_1.mapBiomeId(biomes.getInt(i), biomeRegistry);
             invBiomePalette.computeIfAbsent(biome, k -> {
@@ -159,7 +160,16 @@ public class SPacketChunkData_Latest implements SPacketChunkData {
             biomePalette.add(0);
             invBiomePalette.put(0, 0);
         }
+    }
 
+    private static void computeBiomeData(
+            int sectionY,
+            net.minecraft.util.registry.Registry<Biome> biomeRegistry,
+            IntList biomes,
+            Int2IntMap invBiomePalette,
+            IntList biomePalette,
+            ChunkData_Latest.ChunkSection toSection
+    ) {
         int bitsPerBiome = MathHelper.ceilLog2(biomePalette.size());
         if (bitsPerBiome == 0) {
             var toBiomes = new ChunkData_Latest.BiomePalettedContainer.Singleton();
@@ -247,46 +257,61 @@ public class SPacketChunkData_Latest implements SPacketChunkData {
                 ChunkData data_,
                 @FilledArgument TypedMap userData,
                 @GlobalData DynamicRegistryManager registryManager,
-                @GlobalData DimensionTypeReference dimType
+                @GlobalData DimensionTypeReference dimType,
+                @GlobalData TranslationContext context
         ) {
             var data = (ChunkData_Latest) data_;
-            List<ChunkData.Section> sections = data.sections;
+            var blocksNeedingUpdate = translateSections(context, dimType.getValue(registryManager).minY(), data.sections);
+            // the key defaults to an empty map, and most chunks have nothing to update
+            if (!blocksNeedingUpdate.isEmpty()) {
+                userData.put(BlockConnections.BLOCKS_NEEDING_UPDATE_KEY, blocksNeedingUpdate);
+            }
 
+            return data;
+        }
+
+        /**
+         * Translates the block states of the sections to the client's and fixes their block connections, returning the
+         * blocks on the edges of the chunk which need updating once their neighboring chunks arrive
+         */
+        public static EnumMap<EightWayDirection, BitSet> translateSections(TranslationContext context, int minY, List<ChunkData.Section> sections) {
             for (ChunkData.Section section_ : sections) {
                 var section = (ChunkData_Latest.ChunkSection) section_;
-                if (section.blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Singleton singleton) {
-                    singleton.blockStateId = PacketSystem.serverBlockStateIdToClient(singleton.blockStateId);
-                } else if (section.blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Multiple multiple) {
-                    for (int i = 0; i < multiple.palette.length; i++) {
-                        multiple.palette[i] = PacketSystem.serverBlockStateIdToClient(multiple.palette[i]);
-                    }
-                    int expectedSize = Utils.getExpectedPackedIntegerArraySize(multiple.paletteSize, 4096);
-                    if (multiple.data.length != expectedSize) {
-                        // some servers send a shorter array than necessary, presumably to save bytes
-                        multiple.data = Arrays.copyOf(multiple.data, expectedSize);
-                    }
-                } else {
-                    // TODO: handle case where registry bits change
-                    var registryContainer = (ChunkData_Latest.BlockStatePalettedContainer.RegistryContainer) section.blockStates;
-                    int paletteSize = MathHelper.ceilLog2(Block.STATE_IDS.size());
-                    int expectedSize = Utils.getExpectedPackedIntegerArraySize(paletteSize, 4096);
-                    if (registryContainer.data.length != expectedSize) {
-                        // some servers send a shorter array than necessary, presumably to save bytes
-                        registryContainer.data = Arrays.copyOf(registryContainer.data, expectedSize);
-                    }
-                    PackedIntegerArray packedArray = new PackedIntegerArray(paletteSize, 4096, registryContainer.data);
-                    for (int i = 0; i < 4096; i++) {
-                        packedArray.set(i, PacketSystem.serverBlockStateIdToClient(packedArray.get(i)));
-                    }
-                }
+                translateBlockStates(context, section.blockStates);
             }
 
-            var world = new BlockConnectionsNetworkView(dimType.getValue(registryManager).minY(), sections);
-            var blocksNeedingUpdate = new EnumMap<EightWayDirection, IntSet>(EightWayDirection.class);
-            ConnectionInfo.protocol.getBlockConnector().fixChunkData(world, blocksNeedingUpdate);
-            userData.put(BlockConnections.BLOCKS_NEEDING_UPDATE_KEY, blocksNeedingUpdate);
+            var world = new BlockConnectionsNetworkView(context.getProtocolVersion(), minY, sections);
+            var blocksNeedingUpdate = new EnumMap<EightWayDirection, BitSet>(EightWayDirection.class);
+            context.getBlockConnector().fixChunkData(world, blocksNeedingUpdate);
+            return blocksNeedingUpdate;
+        }
 
-            return data;
+        private static void translateBlockStates(TranslationContext context, ChunkData.BlockStatePalettedContainer blockStates) {
+            if (blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Singleton singleton) {
+                singleton.blockStateId = context.serverBlockStateIdToClient(singleton.blockStateId);
+            } else if (blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Multiple multiple) {
+                for (int i = 0; i < multiple.palette.length; i++) {
+                    multiple.palette[i] = context.serverBlockStateIdToClient(multiple.palette[i]);
+                }
+                int expectedSize = Utils.getExpectedPackedIntegerArraySize(multiple.paletteSize, 4096);
+                if (multiple.data.length != expectedSize) {
+                    // some servers send a shorter array than necessary, presumably to save bytes
+                    multiple.data = Arrays.copyOf(multiple.data, expectedSize);
+                }
+            } else {
+                // the server's registry may need a different number of bits than ours, so repack to our size.
+                // Short arrays sent by some servers are padded with zeros by the remap.
+                var registryContainer = (ChunkData_Latest.BlockStatePalettedContainer.RegistryContainer) blockStates;
+                int paletteSize = MathHelper.ceilLog2(Block.STATE_IDS.size());
+                registryContainer.data = Utils.remapPackedIntegerArray(
+                        registryContainer.data,
+                        registryContainer.paletteSize,
+                        paletteSize,
+                        4096,
+                        context::serverBlockStateIdToClient
+                );
+                registryContainer.paletteSize = (byte) paletteSize;
+            }
         }
     }
 
@@ -301,12 +326,13 @@ public class SPacketChunkData_Latest implements SPacketChunkData {
 
         public static void preprocessBlockEntity(
                 NbtCompound nbt,
-                @Argument("type") int type
+                @Argument("type") int type,
+                @GlobalData TranslationContext context
         ) {
             if (nbt == null) {
                 return;
             }
-            Identifier name = PacketSystem.serverRawIdToId(net.minecraft.util.registry.Registry.BLOCK_ENTITY_TYPE, type);
+            Identifier name = context.serverRawIdToId(net.minecraft.util.registry.Registry.BLOCK_ENTITY_TYPE, type);
             if (name != null) {
                 nbt.putString("id", name.toString());
             }
@@ -13,7 +13,7 @@ import net.earthcomputer.multiconnect.ap.Types;
 import net.earthcomputer.multiconnect.api.Protocols;
 import net.earthcomputer.multiconnect.connect.ConnectionMode;
 import net.earthcomputer.multiconnect.datafix.MulticonnectDFU;
-import net.earthcomputer.multiconnect.impl.ConnectionInfo;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.packets.CommonTypes;
 import net.earthcomputer.multiconnect.packets.SPacketGameJoin;
 import net.earthcomputer.multiconnect.protocols.generic.DimensionTypeReference;
@@ -58,18 +58,19 @@ public class SPacketGameJoin_Latest implements SPacketGameJoin {
 
     public static Identifier computeDimensionType(
             @Argument("registryManager") NbtCompound registryManager,
-            @Argument("dimensionType") NbtCompound dimensionType
+            @Argument("dimensionType") NbtCompound dimensionType,
+            @GlobalData TranslationContext context
     ) {
         NbtCompound updatedDimType = (NbtCompound) MulticonnectDFU.FIXER.update(
                 MulticonnectDFU.DIMENSION,
                 new Dynamic<>(NbtOps.INSTANCE, dimensionType),
-                ConnectionMode.byValue(ConnectionInfo.protocolVersion).getDataVersion(),
+                ConnectionMode.byValue(context.getProtocolVersion()).getDataVersion(),
                 ConnectionMode.V1_18_2.getDataVersion()
         ).getValue();
         NbtCompound updatedRegistryManager = (NbtCompound) MulticonnectDFU.FIXER.update(
                 MulticonnectDFU.REGISTRY_MANAGER,
                 new Dynamic<>(NbtOps.INSTANCE, registryManager),
-                ConnectionMode.byValue(ConnectionInfo.protocolVersion).getDataVersion(),
+                ConnectionMode.byValue(context.getProtocolVersion()).getDataVersion(),
                 ConnectionMode.V1_18_2.getDataVersion()
         ).getValue();
         if (!updatedRegistryManager.contains("minecraft:dimension_type", NbtElement.COMPOUND_TYPE)) {
@@ -97,13 +98,14 @@ public class SPacketGameJoin_Latest implements SPacketGameJoin {
             @Argument("registryManager") NbtCompound registryManager,
             @Argument("dimensionType") Identifier dimensionType,
             @GlobalData Consumer<DynamicRegistryManager> registryManagerSetter,
-            @GlobalData Consumer<DimensionTypeReference> dimensionTypeSetter
+            @GlobalData Consumer<DimensionTypeReference> dimensionTypeSetter,
+            @GlobalData TranslationContext context
     ) {
         {
             Dynamic<?> updated = MulticonnectDFU.FIXER.update(
                     MulticonnectDFU.REGISTRY_MANAGER,
                     new Dynamic<>(NbtOps.INSTANCE, registryManager),
-                    ConnectionMode.byValue(ConnectionInfo.protocolVersion).getDataVersion(),
+                    ConnectionMode.byValue(context.getProtocolVersion()).getDataVersion(),
                     SharedConstants.getGameVersion().getSaveVersion().getId()
             );
             var dataResult = DynamicRegistryManager.CODEC.decode(updated);
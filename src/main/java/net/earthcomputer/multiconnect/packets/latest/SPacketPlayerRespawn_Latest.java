@@ -11,7 +11,7 @@ import net.earthcomputer.multiconnect.ap.Types;
 import net.earthcomputer.multiconnect.api.Protocols;
 import net.earthcomputer.multiconnect.connect.ConnectionMode;
 import net.earthcomputer.multiconnect.datafix.MulticonnectDFU;
-import net.earthcomputer.multiconnect.impl.ConnectionInfo;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.packets.CommonTypes;
 import net.earthcomputer.multiconnect.packets.SPacketPlayerRespawn;
 import net.earthcomputer.multiconnect.protocols.generic.DimensionTypeReference;
@@ -46,12 +46,13 @@ public class SPacketPlayerRespawn_Latest implements SPacketPlayerRespawn {
 
     public static Identifier computeDimension(
             @Argument("dimension") NbtCompound dimension,
-            @GlobalData DynamicRegistryManager registryManager
+            @GlobalData DynamicRegistryManager registryManager,
+            @GlobalData TranslationContext context
     ) {
         NbtCompound updatedDimension = (NbtCompound) MulticonnectDFU.FIXER.update(
                 MulticonnectDFU.DIMENSION,
                 new Dynamic<>(NbtOps.INSTANCE, dimension),
-                ConnectionMode.byValue(ConnectionInfo.protocolVersion).getDataVersion(),
+                ConnectionMode.byValue(context.getProtocolVersion()).getDataVersion(),
                 SharedConstants.getGameVersion().getSaveVersion().getId()
         ).getValue();
         updatedDimension = (NbtCompound) DimensionType.CODEC.encodeStart(
@@ -2,13 +2,14 @@ package net.earthcomputer.multiconnect.packets.latest;
 
 import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.FilledArgument;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Introduce;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
 import net.earthcomputer.multiconnect.ap.Polymorphic;
 import net.earthcomputer.multiconnect.ap.Registries;
 import net.earthcomputer.multiconnect.ap.Registry;
 import net.earthcomputer.multiconnect.api.Protocols;
-import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.packets.SPacketStatistics;
 import net.earthcomputer.multiconnect.packets.v1_12_2.SPacketStatistics_1_12_2;
 import net.earthcomputer.multiconnect.protocols.v1_12_2.mixin.StatsCounterFixAccessor;
@@ -34,11 +35,12 @@ public class SPacketStatistics_Latest implements SPacketStatistics {
             @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.STAT_TYPE, value = "picked_up")) int pickedUpId,
             @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.STAT_TYPE, value = "dropped")) int droppedId,
             @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.STAT_TYPE, value = "killed")) int killedId,
-            @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.STAT_TYPE, value = "killed_by")) int killedById
+            @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.STAT_TYPE, value = "killed_by")) int killedById,
+            @GlobalData TranslationContext context
     ) {
         List<StatWithValue> result = new ArrayList<>(statistics.size());
         for (var stat : statistics) {
-            Statistic newStat = translateStat(stat.stat, customId, minedId, craftedId, usedId, brokenId, pickedUpId, droppedId, killedId, killedById);
+            Statistic newStat = translateStat(context, stat.stat, customId, minedId, craftedId, usedId, brokenId, pickedUpId, droppedId, killedId, killedById);
             if (newStat != null) {
                 result.add(new StatWithValue(newStat, stat.value));
             }
@@ -48,6 +50,7 @@ public class SPacketStatistics_Latest implements SPacketStatistics {
 
     @Nullable
     private static Statistic translateStat(
+            TranslationContext context,
             String statName,
             int customId,
             int minedId,
@@ -71,7 +74,7 @@ public class SPacketStatistics_Latest implements SPacketStatistics {
             }
 
             Identifier customStatId = new Identifier(customStat);
-            Integer customStatRawId = PacketSystem.serverIdToRawId(net.minecraft.util.registry.Registry.CUSTOM_STAT, customStatId);
+            Integer customStatRawId = context.serverIdToRawId(net.minecraft.util.registry.Registry.CUSTOM_STAT, customStatId);
             if (customStatRawId == null) {
                 throw new AssertionError("translateCustomStat returned value not in registry");
             }
@@ -130,7 +133,7 @@ public class SPacketStatistics_Latest implements SPacketStatistics {
             if (renamed == null) {
                 return null;
             }
-            Integer rawId = PacketSystem.serverIdToRawId(net.minecraft.util.registry.Registry.ENTITY_TYPE, new Identifier(renamed));
+            Integer rawId = context.serverIdToRawId(net.minecraft.util.registry.Registry.ENTITY_TYPE, new Identifier(renamed));
             if (rawId == null) {
                 throw new AssertionError("getRenamedEntities returned value not in registry");
             }
@@ -147,14 +150,14 @@ public class SPacketStatistics_Latest implements SPacketStatistics {
         }
 
         if (statistic instanceof BlockStatistic blockStat) {
-            Integer rawId = PacketSystem.serverIdToRawId(net.minecraft.util.registry.Registry.BLOCK, id);
+            Integer rawId = context.serverIdToRawId(net.minecraft.util.registry.Registry.BLOCK, id);
             if (rawId == null) {
                 return null;
             }
             blockStat.block = rawId;
         } else {
             ItemStatistic itemStat = (ItemStatistic) statistic;
-            Integer rawId = PacketSystem.serverIdToRawId(net.minecraft.util.registry.Registry.ITEM, id);
+            Integer rawId = context.serverIdToRawId(net.minecraft.util.registry.Registry.ITEM, id);
             if (rawId == null) {
                 return null;
             }
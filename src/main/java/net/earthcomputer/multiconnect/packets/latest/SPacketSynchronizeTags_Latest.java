@@ -4,11 +4,12 @@ import it.unimi.dsi.fastutil.ints.IntList;
 import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.CustomFix;
 import net.earthcomputer.multiconnect.ap.DefaultConstruct;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Introduce;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
 import net.earthcomputer.multiconnect.ap.Polymorphic;
 import net.earthcomputer.multiconnect.api.Protocols;
-import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.packets.SPacketSynchronizeTags;
 import net.earthcomputer.multiconnect.protocols.generic.TagLoader;
 import net.minecraft.util.Identifier;
@@ -60,8 +61,8 @@ public class SPacketSynchronizeTags_Latest implements SPacketSynchronizeTags {
         @CustomFix("fixTags")
         public List<Tag> tags;
 
-        public static List<Tag> fixTags(List<Tag> tags) {
-            return doFixTags(Registry.BLOCK, TagLoader::blocks, tags);
+        public static List<Tag> fixTags(List<Tag> tags, @GlobalData TranslationContext context) {
+            return doFixTags(context, Registry.BLOCK, TagLoader::blocks, tags);
         }
     }
 
@@ -71,8 +72,8 @@ public class SPacketSynchronizeTags_Latest implements SPacketSynchronizeTags {
         @CustomFix("fixTags")
         public List<Tag> tags;
 
-        public static List<Tag> fixTags(List<Tag> tags) {
-            return doFixTags(Registry.ITEM, TagLoader::items, tags);
+        public static List<Tag> fixTags(List<Tag> tags, @GlobalData TranslationContext context) {
+            return doFixTags(context, Registry.ITEM, TagLoader::items, tags);
         }
     }
 
@@ -82,8 +83,8 @@ public class SPacketSynchronizeTags_Latest implements SPacketSynchronizeTags {
         @CustomFix("fixTags")
         public List<Tag> tags;
 
-        public static List<Tag> fixTags(List<Tag> tags) {
-            return doFixTags(Registry.FLUID, TagLoader::fluids, tags);
+        public static List<Tag> fixTags(List<Tag> tags, @GlobalData TranslationContext context) {
+            return doFixTags(context, Registry.FLUID, TagLoader::fluids, tags);
         }
     }
 
@@ -93,8 +94,8 @@ public class SPacketSynchronizeTags_Latest implements SPacketSynchronizeTags {
         @CustomFix("fixTags")
         public List<Tag> tags;
 
-        public static List<Tag> fixTags(List<Tag> tags) {
-            return doFixTags(Registry.ENTITY_TYPE, TagLoader::entityTypes, tags);
+        public static List<Tag> fixTags(List<Tag> tags, @GlobalData TranslationContext context) {
+            return doFixTags(context, Registry.ENTITY_TYPE, TagLoader::entityTypes, tags);
         }
     }
 
@@ -104,8 +105,8 @@ public class SPacketSynchronizeTags_Latest implements SPacketSynchronizeTags {
         @CustomFix("fixTags")
         public List<Tag> tags;
 
-        public static List<Tag> fixTags(List<Tag> tags) {
-            return doFixTags(Registry.GAME_EVENT, TagLoader::gameEvents, tags);
+        public static List<Tag> fixTags(List<Tag> tags, @GlobalData TranslationContext context) {
+            return doFixTags(context, Registry.GAME_EVENT, TagLoader::gameEvents, tags);
         }
     }
 
@@ -116,6 +117,7 @@ public class SPacketSynchronizeTags_Latest implements SPacketSynchronizeTags {
     }
 
     private static List<Tag> doFixTags(
+            TranslationContext context,
             Registry<?> registry,
             Supplier<Map<Identifier, IntList>> vanillaSupplier,
             List<Tag> tags
@@ -124,7 +126,7 @@ public class SPacketSynchronizeTags_Latest implements SPacketSynchronizeTags {
         for (Tag tag : tags) {
             vanillaTags.remove(tag.name);
             for (int i = 0; i < tag.entries.size(); i++) {
-                tag.entries.set(i, PacketSystem.serverRawIdToClient(registry, tag.entries.getInt(i)));
+                tag.entries.set(i, context.serverRawIdToClient(registry, tag.entries.getInt(i)));
             }
         }
         vanillaTags.forEach((name, entries) -> tags.add(new Tag(name, entries)));
@@ -2,12 +2,13 @@ package net.earthcomputer.multiconnect.packets.latest;
 
 import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.CustomFix;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Introduce;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
 import net.earthcomputer.multiconnect.ap.Type;
 import net.earthcomputer.multiconnect.ap.Types;
 import net.earthcomputer.multiconnect.api.Protocols;
-import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.packets.CommonTypes;
 import net.earthcomputer.multiconnect.packets.SPacketWorldEvent;
 import net.earthcomputer.multiconnect.protocols.v1_12_2.Blocks_1_12_2;
@@ -32,9 +33,9 @@ public class SPacketWorldEvent_Latest implements SPacketWorldEvent {
         }
     }
 
-    public static int fixData(int data, @Argument("id") int id) {
+    public static int fixData(int data, @Argument("id") int id, @GlobalData TranslationContext context) {
         if (id == WorldEvents.BLOCK_BROKEN) {
-            return PacketSystem.serverBlockStateIdToClient(data);
+            return context.serverBlockStateIdToClient(data);
         } else {
             return data;
         }
@@ -4,12 +4,14 @@ import it.unimi.dsi.fastutil.objects.ObjectIntPair;
 import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.DefaultConstruct;
 import net.earthcomputer.multiconnect.ap.FilledArgument;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Introduce;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
 import net.earthcomputer.multiconnect.ap.Polymorphic;
 import net.earthcomputer.multiconnect.ap.Registries;
 import net.earthcomputer.multiconnect.api.Protocols;
 import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.packets.CommonTypes;
 import net.earthcomputer.multiconnect.packets.v1_13_1.ItemStack_1_13_1;
 import net.earthcomputer.multiconnect.protocols.v1_12_2.mixin.ItemInstanceTheFlatteningFixAccessor;
@@ -31,6 +33,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 @Polymorphic
 @MessageVariant(maxVersion = Protocols.V1_12_2)
@@ -47,13 +50,14 @@ public abstract class ItemStack_1_12_2 implements CommonTypes.ItemStack {
 
     public static short computeItemId(
             @Argument("itemId") short itemId,
-            @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "bat_spawn_egg")) int spawnEggId
+            @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "bat_spawn_egg")) int spawnEggId,
+            @GlobalData TranslationContext context
     ) {
         if (itemId == -1) {
             return -1;
         }
 
-        int newItemId = PacketSystem.serverRawIdToClient(Registry.ITEM, itemId);
+        int newItemId = context.serverRawIdToClient(Registry.ITEM, itemId);
         Item item = Registry.ITEM.get(newItemId);
         if (item instanceof SpawnEggItem) {
             return (short) spawnEggId;
@@ -64,7 +68,7 @@ public abstract class ItemStack_1_12_2 implements CommonTypes.ItemStack {
         if (name != null) {
             ObjectIntPair<Identifier> pair = REVERSE_FLATTENING_MAP.get(name.toString());
             if (pair != null) {
-                Integer rawId = PacketSystem.serverIdToRawId(Registry.ITEM, pair.first());
+                Integer rawId = context.serverIdToRawId(Registry.ITEM, pair.first());
                 if (rawId == null) {
                     throw new AssertionError("REVERSE_FLATTENING_MAP contains value not in registry");
                 }
@@ -86,18 +90,21 @@ public abstract class ItemStack_1_12_2 implements CommonTypes.ItemStack {
             result.itemId = -1;
             return result;
         } else {
+            // the stack comes from the game, so is converted for the game's own connection
+            TranslationContext context = Objects.requireNonNull(PacketSystem.getCurrentContext(), "Not connected to a server");
             var later = (ItemStack_1_13_1.NonEmpty) ItemStack_1_13_1.fromMinecraft(stack);
             var result = new NonEmpty();
-            result.itemId = computeItemId(later.itemId, PacketSystem.clientRawIdToServer(Registry.ITEM, Registry.ITEM.getRawId(Items.BAT_SPAWN_EGG)));
+            result.itemId = computeItemId(later.itemId, context.clientRawIdToServer(Registry.ITEM, Registry.ITEM.getRawId(Items.BAT_SPAWN_EGG)), context);
             result.count = later.count;
-            int filledMapId = PacketSystem.clientRawIdToServer(Registry.ITEM, Registry.ITEM.getRawId(Items.FILLED_MAP));
-            result.damage = NonEmpty.computeDamage(result.itemId, result.tag, filledMapId);
+            int filledMapId = context.clientRawIdToServer(Registry.ITEM, Registry.ITEM.getRawId(Items.FILLED_MAP));
+            result.damage = NonEmpty.computeDamage(result.itemId, result.tag, filledMapId, context);
             result.tag = NonEmpty.computeTag(
                     result.itemId,
                     result.tag,
                     filledMapId,
-                    PacketSystem.clientRawIdToServer(Registry.ITEM, Registry.ITEM.getRawId(Items.ENCHANTED_BOOK)),
-                    PacketSystem.clientRawIdToServer(Registry.ITEM, Registry.ITEM.getRawId(Items.SHIELD))
+                    context.clientRawIdToServer(Registry.ITEM, Registry.ITEM.getRawId(Items.ENCHANTED_BOOK)),
+                    context.clientRawIdToServer(Registry.ITEM, Registry.ITEM.getRawId(Items.SHIELD)),
+                    context
             );
             return result;
         }
@@ -136,9 +143,10 @@ public abstract class ItemStack_1_12_2 implements CommonTypes.ItemStack {
         public static short computeDamage(
                 @Argument("itemId") short itemId,
                 @Argument("tag") @Nullable NbtCompound tag,
-                @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "filled_map")) int filledMapId
+                @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "filled_map")) int filledMapId,
+                @GlobalData TranslationContext context
         ) {
-            Identifier itemName = PacketSystem.serverRawIdToId(Registry.ITEM, itemId);
+            Identifier itemName = context.serverRawIdToId(Registry.ITEM, itemId);
             if (itemName != null) {
                 ObjectIntPair<Identifier> pair = REVERSE_FLATTENING_MAP.get(itemName.toString());
                 if (pair != null) {
@@ -150,7 +158,7 @@ public abstract class ItemStack_1_12_2 implements CommonTypes.ItemStack {
                 return tag == null ? 0 : (short) tag.getInt("map");
             }
 
-            int newItemId = PacketSystem.serverRawIdToClient(Registry.ITEM, itemId);
+            int newItemId = context.serverRawIdToClient(Registry.ITEM, itemId);
             Item item = Registry.ITEM.get(newItemId);
             if (item.getMaxDamage() > 0) {
                 return tag == null ? 0 : (short) tag.getInt("Damage");
@@ -164,16 +172,17 @@ public abstract class ItemStack_1_12_2 implements CommonTypes.ItemStack {
                 @Argument("tag") @Nullable NbtCompound tag,
                 @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "filled_map")) int filledMapId,
                 @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "enchanted_book")) int enchantedBookId,
-                @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "shield")) int shieldId
+                @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "shield")) int shieldId,
+                @GlobalData TranslationContext context
         ) {
             boolean copiedTag = false;
 
-            int newItemId = PacketSystem.serverRawIdToClient(Registry.ITEM, itemId);
+            int newItemId = context.serverRawIdToClient(Registry.ITEM, itemId);
             Item item = Registry.ITEM.get(newItemId);
             if (item instanceof SpawnEggItem spawnEggItem) {
                 EntityType<?> entityType = spawnEggItem.getEntityType(null);
                 Identifier newEntityId = Registry.ENTITY_TYPE.getId(entityType);
-                Identifier id = PacketSystem.clientIdToServer(Registry.ENTITY_TYPE, newEntityId);
+                Identifier id = context.clientIdToServer(Registry.ENTITY_TYPE, newEntityId);
                 if (id != null) {
                     copiedTag = true;
                     tag = tag == null ? new NbtCompound() : tag.copy();
@@ -208,7 +217,7 @@ public abstract class ItemStack_1_12_2 implements CommonTypes.ItemStack {
                     copiedTag = true;
                     tag = tag.copy();
                     NbtList enchantments = tag.getList("StoredEnchantments", NbtElement.COMPOUND_TYPE);
-                    newEnchantmentListToOld(enchantments);
+                    newEnchantmentListToOld(context, enchantments);
                 }
             }
 
@@ -228,7 +237,7 @@ public abstract class ItemStack_1_12_2 implements CommonTypes.ItemStack {
                     tag = tag.copy();
                 }
                 NbtList enchantments = tag.getList("Enchantments", NbtElement.COMPOUND_TYPE);
-                newEnchantmentListToOld(enchantments);
+                newEnchantmentListToOld(context, enchantments);
                 tag.put("ench", enchantments);
                 tag.remove("Enchantments");
             }
@@ -253,13 +262,13 @@ public abstract class ItemStack_1_12_2 implements CommonTypes.ItemStack {
             return tag;
         }
 
-        private static void newEnchantmentListToOld(NbtList enchantments) {
+        private static void newEnchantmentListToOld(TranslationContext context, NbtList enchantments) {
             for (int i = 0; i < enchantments.size(); i++) {
                 NbtCompound enchantment = enchantments.getCompound(i);
                 Identifier name = Identifier.tryParse(enchantment.getString("id"));
                 boolean valid = false;
                 if (name != null) {
-                    Integer id = PacketSystem.serverIdToRawId(Registry.ENCHANTMENT, name);
+                    Integer id = context.serverIdToRawId(Registry.ENCHANTMENT, name);
                     if (id != null) {
                         enchantment.putInt("id", id);
                         valid = true;
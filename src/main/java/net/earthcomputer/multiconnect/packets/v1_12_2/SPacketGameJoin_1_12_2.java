@@ -2,13 +2,14 @@ package net.earthcomputer.multiconnect.packets.v1_12_2;
 
 import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.DefaultConstruct;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Handler;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
 import net.earthcomputer.multiconnect.ap.ReturnType;
 import net.earthcomputer.multiconnect.ap.Type;
 import net.earthcomputer.multiconnect.ap.Types;
 import net.earthcomputer.multiconnect.api.Protocols;
-import net.earthcomputer.multiconnect.impl.ConnectionInfo;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.packets.SPacketCommandTree;
 import net.earthcomputer.multiconnect.packets.SPacketGameJoin;
 import net.earthcomputer.multiconnect.packets.v1_13_2.SPacketGameJoin_1_13_2;
@@ -45,14 +46,15 @@ public class SPacketGameJoin_1_12_2 implements SPacketGameJoin {
     public static List<Object> handle(
             @Argument(value = "this", translate = true) SPacketGameJoin_1_13_2 translatedThis,
             @DefaultConstruct SPacketSynchronizeTags_1_13_2 synchronizeTagsPacket,
-            @DefaultConstruct SPacketSynchronizeRecipes_1_13_2 synchronizeRecipesPacket
+            @DefaultConstruct SPacketSynchronizeRecipes_1_13_2 synchronizeRecipesPacket,
+            @GlobalData TranslationContext context
     ) {
         List<Object> packets = new ArrayList<>(4);
         packets.add(translatedThis);
         packets.add(synchronizeTagsPacket);
 
         int recipeId = 0;
-        for (RecipeInfo<?> recipeInfo : ((Protocol_1_12_2) ConnectionInfo.protocol).getRecipes()) {
+        for (RecipeInfo<?> recipeInfo : ((Protocol_1_12_2) context.getProtocol()).getRecipes()) {
             synchronizeRecipesPacket.recipes.add(recipeInfo.toPacketRecipe(new Identifier(String.valueOf(recipeId++))));
         }
 
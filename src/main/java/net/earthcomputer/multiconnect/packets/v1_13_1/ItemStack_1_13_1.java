@@ -3,12 +3,14 @@ package net.earthcomputer.multiconnect.packets.v1_13_1;
 import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.DefaultConstruct;
 import net.earthcomputer.multiconnect.ap.FilledArgument;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Introduce;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
 import net.earthcomputer.multiconnect.ap.Polymorphic;
 import net.earthcomputer.multiconnect.ap.Registries;
 import net.earthcomputer.multiconnect.api.Protocols;
 import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.packets.CommonTypes;
 import net.earthcomputer.multiconnect.packets.v1_12_2.ItemStack_1_12_2;
 import net.earthcomputer.multiconnect.packets.v1_13_2.ItemStack_1_13_2;
@@ -44,7 +46,8 @@ public abstract class ItemStack_1_13_1 implements CommonTypes.ItemStack {
 
     public static short computeItemIdClientbound(
             @Argument("this") ItemStack_1_12_2 self,
-            @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "bat_spawn_egg")) int spawnEggId
+            @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "bat_spawn_egg")) int spawnEggId,
+            @GlobalData TranslationContext context
     ) {
         if (self.itemId == -1) {
             return -1;
@@ -59,26 +62,26 @@ public abstract class ItemStack_1_13_1 implements CommonTypes.ItemStack {
                     String entityId = entityTag.getString("id");
                     Identifier identifier = Identifier.tryParse(entityId);
                     if (identifier != null) {
-                        Identifier newId = PacketSystem.serverIdToClient(Registry.ENTITY_TYPE, identifier);
+                        Identifier newId = context.serverIdToClient(Registry.ENTITY_TYPE, identifier);
                         if (newId != null) {
                             EntityType<?> entityType = Registry.ENTITY_TYPE.get(newId);
                             Item newItem = SpawnEggItem.forEntity(entityType);
                             int newItemId = Registry.ITEM.getRawId(newItem);
-                            return (short) PacketSystem.clientRawIdToServer(Registry.ITEM, newItemId);
+                            return (short) context.clientRawIdToServer(Registry.ITEM, newItemId);
                         }
                     }
                 }
             }
         }
 
-        Identifier name = PacketSystem.serverRawIdToId(Registry.ITEM, self.itemId);
+        Identifier name = context.serverRawIdToId(Registry.ITEM, self.itemId);
         String newName = ItemInstanceTheFlatteningFix.getItem(name == null ? null : name.toString(), nonEmptySelf.damage);
         if (newName != null) {
             // convert 1.13 name to server raw id
             Identifier currentName = PacketSystem.serverIdToClient(Protocols.V1_13, Registry.ITEM, new Identifier(newName));
             Item item = Registry.ITEM.get(currentName);
             int currentRawId = Registry.ITEM.getRawId(item);
-            return (short) PacketSystem.clientRawIdToServer(Registry.ITEM, currentRawId);
+            return (short) context.clientRawIdToServer(Registry.ITEM, currentRawId);
         }
 
         return self.itemId;
@@ -139,7 +142,8 @@ public abstract class ItemStack_1_13_1 implements CommonTypes.ItemStack {
                 @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "filled_map")) int filledMapId,
                 @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "enchanted_book")) int enchantedBookId,
                 @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "black_banner")) int bannerId,
-                @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "shield")) int shieldId
+                @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.ITEM, value = "shield")) int shieldId,
+                @GlobalData TranslationContext context
         ) {
             boolean copiedTag = false;
             if (itemId == filledMapId) {
@@ -151,10 +155,10 @@ public abstract class ItemStack_1_13_1 implements CommonTypes.ItemStack {
                     copiedTag = true;
                     tag = tag.copy();
                     NbtList enchantments = tag.getList("StoredEnchantments", NbtElement.COMPOUND_TYPE);
-                    oldEnchantmentListToNew(enchantments);
+                    oldEnchantmentListToNew(context, enchantments);
                 }
             } else {
-                int newId = PacketSystem.serverRawIdToClient(Registry.ITEM, itemId);
+                int newId = context.serverRawIdToClient(Registry.ITEM, itemId);
                 Item item = Registry.ITEM.get(newId);
                 if (item.getMaxDamage() > 0) {
                     copiedTag = true;
@@ -179,7 +183,7 @@ public abstract class ItemStack_1_13_1 implements CommonTypes.ItemStack {
                     tag = tag.copy();
                 }
                 NbtList enchantments = tag.getList("ench", NbtElement.COMPOUND_TYPE);
-                oldEnchantmentListToNew(enchantments);
+                oldEnchantmentListToNew(context, enchantments);
                 tag.put("Enchantments", enchantments);
                 tag.remove("ench");
             }
@@ -211,10 +215,10 @@ public abstract class ItemStack_1_13_1 implements CommonTypes.ItemStack {
             }
         }
 
-        private static void oldEnchantmentListToNew(NbtList enchantments) {
+        private static void oldEnchantmentListToNew(TranslationContext context, NbtList enchantments) {
             for (int i = 0; i < enchantments.size(); i++) {
                 NbtCompound ench = enchantments.getCompound(i);
-                Identifier name = PacketSystem.serverRawIdToId(Registry.ENCHANTMENT, ench.getInt("id"));
+                Identifier name = context.serverRawIdToId(Registry.ENCHANTMENT, ench.getInt("id"));
                 if (name == null) {
                     enchantments.remove(i--);
                 } else {
@@ -4,6 +4,7 @@ import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.Datafix;
 import net.earthcomputer.multiconnect.ap.DatafixTypes;
 import net.earthcomputer.multiconnect.ap.FilledArgument;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Introduce;
 import net.earthcomputer.multiconnect.ap.Length;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
@@ -11,7 +12,7 @@ import net.earthcomputer.multiconnect.ap.Registries;
 import net.earthcomputer.multiconnect.ap.Type;
 import net.earthcomputer.multiconnect.ap.Types;
 import net.earthcomputer.multiconnect.api.Protocols;
-import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.impl.Utils;
 import net.earthcomputer.multiconnect.packets.ChunkData;
 import net.earthcomputer.multiconnect.packets.SPacketChunkData;
@@ -42,7 +43,8 @@ public class SPacketChunkData_1_14_4 implements SPacketChunkData {
     public static NbtCompound computeHeightmaps(
             @Argument("verticalStripBitmask") int verticalStripBitmask,
             @Argument("data") ChunkData data_,
-            @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.BLOCK_STATE, value = "air")) int airId
+            @FilledArgument(fromRegistry = @FilledArgument.FromRegistry(registry = Registries.BLOCK_STATE, value = "air")) int airId,
+            @GlobalData TranslationContext context
     ) {
         var data = (ChunkData_1_14_4) data_;
         ChunkSection_1_13_2[] sections = new ChunkSection_1_13_2[16];
@@ -88,7 +90,7 @@ public class SPacketChunkData_1_14_4 implements SPacketChunkData {
                             stateId = Utils.getOldPackedBitArrayElement(registryPalette.data, index, blockStates.paletteSize);
                         }
                     }
-                    stateId = PacketSystem.serverBlockStateIdToClient(stateId);
+                    stateId = context.serverBlockStateIdToClient(stateId);
                     BlockState state = Block.getStateFromRawId(stateId);
 
                     // test heightmaps
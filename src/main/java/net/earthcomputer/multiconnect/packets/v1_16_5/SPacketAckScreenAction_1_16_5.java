@@ -3,13 +3,14 @@ package net.earthcomputer.multiconnect.packets.v1_16_5;
 import net.earthcomputer.multiconnect.ap.Argument;
 import net.earthcomputer.multiconnect.ap.DefaultConstruct;
 import net.earthcomputer.multiconnect.ap.FilledArgument;
+import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Handler;
 import net.earthcomputer.multiconnect.ap.MessageVariant;
 import net.earthcomputer.multiconnect.ap.Type;
 import net.earthcomputer.multiconnect.ap.Types;
 import net.earthcomputer.multiconnect.api.Protocols;
-import net.earthcomputer.multiconnect.impl.ConnectionInfo;
 import net.earthcomputer.multiconnect.impl.DelayedPacketSender;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
 import net.earthcomputer.multiconnect.protocols.v1_11_2.IScreenHandler;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
@@ -30,7 +31,8 @@ public class SPacketAckScreenAction_1_16_5 {
             @Argument("actionId") short actionId,
             @Argument("accepted") boolean accepted,
             @DefaultConstruct Supplier<CPacketAckScreenAction_1_16_5> responsePacketCreator,
-            @FilledArgument DelayedPacketSender<CPacketAckScreenAction_1_16_5> responseSender
+            @FilledArgument DelayedPacketSender<CPacketAckScreenAction_1_16_5> responseSender,
+            @GlobalData TranslationContext context
     ) {
         MinecraftClient.getInstance().execute(() -> {
             ClientPlayerEntity player = MinecraftClient.getInstance().player;
@@ -42,7 +44,7 @@ public class SPacketAckScreenAction_1_16_5 {
                     screenHandler = player.currentScreenHandler;
                 }
                 if (screenHandler != null) {
-                    if (ConnectionInfo.protocolVersion <= Protocols.V1_11_2) {
+                    if (context.getProtocolVersion() <= Protocols.V1_11_2) {
                         ((IScreenHandler) screenHandler).multiconnect_getRecipeBookEmulator().onAckScreenAction(actionId, accepted);
                     }
                     if (!accepted) {
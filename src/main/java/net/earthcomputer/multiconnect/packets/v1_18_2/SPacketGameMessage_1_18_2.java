@@ -2,15 +2,18 @@ package net.earthcomputer.multiconnect.packets.v1_18_2;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.JsonParser;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import net.earthcomputer.multiconnect.ap.Argument;
+import net.earthcomputer.multiconnect.ap.FilledArgument;
 import net.earthcomputer.multiconnect.ap.GlobalData;
 import net.earthcomputer.multiconnect.ap.Handler;
 import net.earthcomputer.multiconnect.ap.Introduce;
@@ -21,6 +24,8 @@ import net.earthcomputer.multiconnect.packets.CommonTypes;
 import net.earthcomputer.multiconnect.packets.SPacketChatMessage;
 import net.earthcomputer.multiconnect.packets.SPacketGameMessage;
 import net.earthcomputer.multiconnect.packets.latest.SPacketGameMessage_Latest;
+import net.earthcomputer.multiconnect.protocols.generic.Key;
+import net.earthcomputer.multiconnect.protocols.generic.TypedMap;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.StringNbtReader;
@@ -34,37 +39,51 @@ import org.jetbrains.annotations.Nullable;
 import java.lang.reflect.Type;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 @MessageVariant(minVersion = Protocols.V1_16, maxVersion = Protocols.V1_18_2)
 public class SPacketGameMessage_1_18_2 implements SPacketGameMessage {
     private static final Gson GSON = new GsonBuilder()
-            .registerTypeAdapter(MyText.Arg.class, new MyText.Arg.Serializer())
-            .registerTypeAdapter(MyText.Contents.class, new MyText.Contents.Serializer())
+            .registerTypeAdapter(MyText.Arg.class, new MyText.Arg.Deserializer())
+            .registerTypeAdapter(MyText.Contents.class, new MyText.Contents.Deserializer())
             .create();
 
+    private static final Key<ParsedText> PARSED_TEXT_KEY = Key.create("parsedGameMessageText");
+
     public CommonTypes.Text text;
     public byte position;
     @Introduce(compute = "computeSender")
     public UUID sender;
 
-    public static UUID computeSender(@Argument("text") CommonTypes.Text text) {
-        MyText myText;
-        try {
-            myText = JsonHelper.deserialize(GSON, text.json, MyText.class, false);
-        } catch (JsonParseException e) {
+    public static UUID computeSender(
+            @Argument("text") CommonTypes.Text text,
+            @FilledArgument TypedMap userData
+    ) {
+        ParsedText parsedText = getParsedText(text, userData);
+        if (parsedText.translate == null) {
+            return Util.NIL_UUID;
+        }
+        Integer senderIndex = getSenderIndex(parsedText.translate);
+        if (senderIndex == null || senderIndex >= parsedText.getArgCount()) {
+            return Util.NIL_UUID;
+        }
+        String senderArgJson = parsedText.getArg(senderIndex);
+        if (!senderArgJson.startsWith("{")) {
             return Util.NIL_UUID;
         }
-        if (myText == null) {
+        MyText.Arg senderArg;
+        try {
+            senderArg = JsonHelper.deserialize(GSON, senderArgJson, MyText.Arg.class, false);
+        } catch (JsonParseException e) {
             return Util.NIL_UUID;
         }
-        Integer senderIndex = getSenderIndex(myText);
-        if (senderIndex == null || senderIndex >= myText.with.length) {
+        if (senderArg == null) {
             return Util.NIL_UUID;
         }
-        MyText.Arg senderArg = myText.with[senderIndex];
         if (senderArg.hoverEvent == null) {
             return Util.NIL_UUID;
         }
@@ -95,9 +114,18 @@ public class SPacketGameMessage_1_18_2 implements SPacketGameMessage {
         return Util.NIL_UUID;
     }
 
+    private static ParsedText getParsedText(CommonTypes.Text text, TypedMap userData) {
+        ParsedText parsedText = userData.get(PARSED_TEXT_KEY);
+        if (parsedText == null || !parsedText.json.equals(text.json)) {
+            parsedText = ParsedText.parse(text.json);
+            userData.put(PARSED_TEXT_KEY, parsedText);
+        }
+        return parsedText;
+    }
+
     @Nullable
-    private static Integer getSenderIndex(MyText myText) {
-        return switch (myText.translate) {
+    private static Integer getSenderIndex(String translate) {
+        return switch (translate) {
             case "chat.type.text", "chat.type.announcement", "chat.message.display.incoming", "chat.type.emote" -> 0;
             case "chat.type.team.text" -> 1;
             default -> null;
@@ -111,93 +139,399 @@ public class SPacketGameMessage_1_18_2 implements SPacketGameMessage {
             @Argument("text") CommonTypes.Text text,
             @Argument("position") byte position,
             @Argument("sender") UUID sender,
-            @GlobalData DynamicRegistryManager registryManager
+            @GlobalData DynamicRegistryManager registryManager,
+            @FilledArgument TypedMap userData
     ) {
-        if (registryManager == null) {
-            // Some servers apparently send chat messages before the game join packet. We can't handle these anymore
-            return new ArrayList<>(0);
-        }
+        try {
+            if (registryManager == null) {
+                // Some servers apparently send chat messages before the game join packet. We can't handle these anymore
+                return new ArrayList<>(0);
+            }
 
-        Registry<MessageType> messageTypeRegistry = registryManager.get(Registry.MESSAGE_TYPE_KEY);
-        int systemId = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.SYSTEM));
-        int gameInfoId = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.GAME_INFO));
-        int chatId = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.CHAT));
-        int messageType = switch (position) {
-            case 1 -> systemId;
-            case 2 -> gameInfoId;
-            default -> chatId;
-        };
+            Registry<MessageType> messageTypeRegistry = registryManager.get(Registry.MESSAGE_TYPE_KEY);
+            int systemId = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.SYSTEM));
+            int gameInfoId = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.GAME_INFO));
+            int chatId = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.CHAT));
+            int messageType = switch (position) {
+                case 1 -> systemId;
+                case 2 -> gameInfoId;
+                default -> chatId;
+            };
 
-        List<Object> packets = new ArrayList<>(1);
-        var basicPacket = new SPacketGameMessage_Latest();
-        basicPacket.messageType = messageType;
-        basicPacket.text = text;
-        packets.add(basicPacket);
+            List<Object> packets = new ArrayList<>(1);
+            var basicPacket = new SPacketGameMessage_Latest();
+            basicPacket.messageType = messageType;
+            basicPacket.text = text;
+            packets.add(basicPacket);
 
-        MyText myText;
-        try {
-            myText = JsonHelper.deserialize(GSON, text.json, MyText.class, false);
-        } catch (JsonParseException e) {
+            ParsedText parsedText = getParsedText(text, userData);
+            String translate = parsedText.translate;
+            if (translate == null) {
+                return packets;
+            }
+
+            int teamId = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.TEAM_MSG_COMMAND));
+            messageType = switch (translate) {
+                case "chat.type.announcement" -> messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.SAY_COMMAND));
+                case "chat.message.display.incoming" -> messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.MSG_COMMAND));
+                case "chat.type.emote" -> messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.EMOTE_COMMAND));
+                case "chat.type.team.text" -> teamId;
+                default -> messageType;
+            };
+
+            if (messageType == systemId || messageType == gameInfoId) {
+                return packets;
+            }
+
+            if (messageType == chatId && !"chat.type.text".equals(translate)) {
+                messageType = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.TELLRAW_COMMAND));
+            }
+
+            Integer contentIndex = switch (translate) {
+                case "chat.type.text", "chat.type.announcement", "chat.message.display.incoming", "chat.type.emote" -> 1;
+                case "chat.type.team.text" -> 2;
+                default -> null;
+            };
+
+            var packet = new SPacketChatMessage();
+            int argCount = parsedText.getArgCount();
+            packet.signedContent = contentIndex == null || contentIndex >= argCount
+                    ? text
+                    : new CommonTypes.Text(parsedText.getArg(contentIndex));
+            packet.unsignedContent = Optional.empty();
+            packet.messageType = messageType;
+            packet.sender = sender;
+            Integer senderIndex = getSenderIndex(translate);
+            packet.displayName = senderIndex == null || senderIndex >= argCount
+                    ? new CommonTypes.Text("\"\"")
+                    : new CommonTypes.Text(parsedText.getArg(senderIndex));
+            packet.teamDisplayName = messageType != teamId || argCount == 0
+                    ? Optional.empty()
+                    : Optional.of(new CommonTypes.Text(parsedText.getArg(0)));
+            packet.timestamp = Instant.now().toEpochMilli();
+            packet.salt = 0;
+            packet.signature = new byte[0];
+            packets.clear();
+            packets.add(packet);
             return packets;
+        } finally {
+            // the parsed text is only needed while translating this packet, don't keep it alive with the user data
+            userData.put(PARSED_TEXT_KEY, null);
         }
-        if (myText == null) {
-            return packets;
+    }
+
+    /**
+     * The parts of a chat message we need, found by scanning the JSON once rather than deserializing it. Arguments are
+     * kept as slices of the original JSON, so that they can be sent on as texts of their own without re-serializing.
+     */
+    static final class ParsedText {
+        private static final int[] NO_ARGS = new int[0];
+        private static final Pattern NUMBER = Pattern.compile("-?(?:0|[1-9]\\d*)(?:\\.\\d+)?(?:[eE][+-]?\\d+)?");
+
+        private final String json;
+        // the JSON the arguments are slices of, the original JSON unless it had to be parsed leniently
+        private final String argsJson;
+        // null if the text isn't an object, so isn't a chat message we understand
+        @Nullable
+        private final String translate;
+        // start and end offsets of each argument, interleaved
+        private final int[] argBounds;
+
+        private ParsedText(String json, @Nullable String translate, int[] argBounds) {
+            this(json, json, translate, argBounds);
         }
 
-        int teamId = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.TEAM_MSG_COMMAND));
-        messageType = switch (myText.translate) {
-            case "chat.type.announcement" -> messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.SAY_COMMAND));
-            case "chat.message.display.incoming" -> messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.MSG_COMMAND));
-            case "chat.type.emote" -> messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.EMOTE_COMMAND));
-            case "chat.type.team.text" -> teamId;
-            default -> messageType;
-        };
+        private ParsedText(String json, String argsJson, @Nullable String translate, int[] argBounds) {
+            this.json = json;
+            this.argsJson = argsJson;
+            this.translate = translate;
+            this.argBounds = argBounds;
+        }
 
-        if (messageType == systemId || messageType == gameInfoId) {
-            return packets;
+        @Nullable
+        String getTranslate() {
+            return translate;
         }
 
-        if (messageType == chatId && !"chat.type.text".equals(myText.translate)) {
-            messageType = messageTypeRegistry.getRawId(messageTypeRegistry.get(MessageType.TELLRAW_COMMAND));
+        int getArgCount() {
+            return argBounds.length / 2;
         }
 
-        Integer contentIndex = switch (myText.translate) {
-            case "chat.type.text", "chat.type.announcement", "chat.message.display.incoming", "chat.type.emote" -> 1;
-            case "chat.type.team.text" -> 2;
-            default -> null;
-        };
+        String getArg(int index) {
+            return argsJson.substring(argBounds[index * 2], argBounds[index * 2 + 1]);
+        }
+
+        static ParsedText parse(String json) {
+            try {
+                return new ParsedText.Scanner(json).scanText();
+            } catch (JsonParseException e) {
+                // servers may send JSON that only a lenient parser accepts, e.g. with unquoted keys
+                return parseLenient(json);
+            }
+        }
 
-        var packet = new SPacketChatMessage();
-        packet.signedContent = contentIndex == null || contentIndex >= myText.with.length
-                ? text
-                : new CommonTypes.Text(GSON.toJson(myText.with[contentIndex]));
-        packet.unsignedContent = Optional.empty();
-        packet.messageType = messageType;
-        packet.sender = sender;
-        Integer senderIndex = getSenderIndex(myText);
-        packet.displayName = senderIndex == null || senderIndex >= myText.with.length
-                ? new CommonTypes.Text("\"\"")
-                : new CommonTypes.Text(GSON.toJson(myText.with[senderIndex]));
-        packet.teamDisplayName = messageType != teamId || myText.with.length == 0
-                ? Optional.empty()
-                : Optional.of(new CommonTypes.Text(GSON.toJson(myText.with[0])));
-        packet.timestamp = Instant.now().toEpochMilli();
-        packet.salt = 0;
-        packet.signature = new byte[0];
-        packets.clear();
-        packets.add(packet);
-        return packets;
+        private static ParsedText parseLenient(String json) {
+            JsonElement element;
+            try {
+                element = JsonParser.parseString(json);
+            } catch (JsonParseException e) {
+                return new ParsedText(json, null, NO_ARGS);
+            }
+            if (!element.isJsonObject()) {
+                return new ParsedText(json, null, NO_ARGS);
+            }
+            JsonObject obj = element.getAsJsonObject();
+            JsonElement translate = obj.get("translate");
+            JsonElement with = obj.get("with");
+            if ((translate != null && !translate.isJsonPrimitive() && !translate.isJsonNull())
+                    || (with != null && !with.isJsonArray() && !with.isJsonNull())) {
+                return new ParsedText(json, null, NO_ARGS);
+            }
+            String translateStr = translate == null || translate.isJsonNull() ? "" : translate.getAsString();
+            if (with == null || with.isJsonNull()) {
+                return new ParsedText(json, translateStr, NO_ARGS);
+            }
+
+            // the arguments can't be sliced out of JSON that isn't strict, so re-serialize them one after another
+            JsonArray args = with.getAsJsonArray();
+            StringBuilder argsJson = new StringBuilder();
+            int[] argBounds = new int[args.size() * 2];
+            for (int i = 0; i < args.size(); i++) {
+                argBounds[i * 2] = argsJson.length();
+                argsJson.append(args.get(i));
+                argBounds[i * 2 + 1] = argsJson.length();
+            }
+            return new ParsedText(json, argsJson.toString(), translateStr, argBounds);
+        }
+
+        private static final class Scanner {
+            private final String json;
+            private int pos;
+
+            Scanner(String json) {
+                this.json = json;
+            }
+
+            ParsedText scanText() {
+                skipWhitespace();
+                if (pos == json.length() || json.charAt(pos) != '{') {
+                    return new ParsedText(json, null, NO_ARGS);
+                }
+                pos++;
+                String translate = "";
+                int[] argBounds = NO_ARGS;
+                skipWhitespace();
+                if (peek() == '}') {
+                    pos++;
+                    return new ParsedText(json, translate, argBounds);
+                }
+                while (true) {
+                    skipWhitespace();
+                    String key = readString();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    if ("translate".equals(key)) {
+                        translate = readTranslate();
+                    } else if ("with".equals(key)) {
+                        argBounds = readArgBounds();
+                    } else {
+                        skipValue();
+                    }
+                    skipWhitespace();
+                    if (peek() == '}') {
+                        pos++;
+                        return new ParsedText(json, translate, argBounds);
+                    }
+                    expect(',');
+                }
+            }
+
+            private String readTranslate() {
+                char c = peek();
+                if (c == '"') {
+                    return readString();
+                }
+                if (c == '{' || c == '[') {
+                    throw malformed();
+                }
+                int start = pos;
+                skipValue();
+                String literal = json.substring(start, pos);
+                return "null".equals(literal) ? "" : literal;
+            }
+
+            private int[] readArgBounds() {
+                if (peek() != '[') {
+                    int start = pos;
+                    skipValue();
+                    if ("null".equals(json.substring(start, pos))) {
+                        return NO_ARGS;
+                    }
+                    throw malformed();
+                }
+                pos++;
+                IntList bounds = new IntArrayList();
+                skipWhitespace();
+                if (peek() == ']') {
+                    pos++;
+                    return NO_ARGS;
+                }
+                while (true) {
+                    skipWhitespace();
+                    bounds.add(pos);
+                    skipValue();
+                    bounds.add(pos);
+                    skipWhitespace();
+                    if (peek() == ']') {
+                        pos++;
+                        return bounds.toIntArray();
+                    }
+                    expect(',');
+                }
+            }
+
+            private void skipValue() {
+                // iterative rather than recursive, so that deeply nested input can't overflow the stack.
+                // Tracks whether each enclosing container is an object or an array
+                BitSet inObject = null;
+                int depth = 0;
+                while (true) {
+                    char c = peek();
+                    if (c == '{' || c == '[') {
+                        pos++;
+                        skipWhitespace();
+                        if (peek() == (c == '{' ? '}' : ']')) {
+                            pos++;
+                        } else {
+                            if (inObject == null) {
+                                inObject = new BitSet();
+                            }
+                            inObject.set(depth++, c == '{');
+                            if (c == '{') {
+                                skipKey();
+                            }
+                            continue;
+                        }
+                    } else {
+                        skipPrimitive(c);
+                    }
+
+                    // after a value, close the containers that end here and move on to the next value
+                    while (true) {
+                        if (depth == 0) {
+                            return;
+                        }
+                        skipWhitespace();
+                        boolean object = inObject.get(depth - 1);
+                        if (peek() == (object ? '}' : ']')) {
+                            pos++;
+                            depth--;
+                            continue;
+                        }
+                        expect(',');
+                        skipWhitespace();
+                        if (object) {
+                            skipKey();
+                        }
+                        break;
+                    }
+                }
+            }
+
+            private void skipKey() {
+                skipString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+            }
+
+            private void skipPrimitive(char c) {
+                switch (c) {
+                    case '"' -> skipString();
+                    case 't' -> expectLiteral("true");
+                    case 'f' -> expectLiteral("false");
+                    case 'n' -> expectLiteral("null");
+                    default -> {
+                        int start = pos;
+                        while (pos < json.length() && "+-.0123456789eE".indexOf(json.charAt(pos)) != -1) {
+                            pos++;
+                        }
+                        if (!NUMBER.matcher(json).region(start, pos).matches()) {
+                            throw malformed();
+                        }
+                    }
+                }
+            }
+
+            private void skipString() {
+                expect('"');
+                while (true) {
+                    char c = peek();
+                    pos++;
+                    if (c == '"') {
+                        return;
+                    }
+                    if (c == '\\') {
+                        peek();
+                        pos++;
+                    }
+                }
+            }
+
+            private String readString() {
+                int start = pos + 1;
+                skipString();
+                String str = json.substring(start, pos - 1);
+                if (str.indexOf('\\') == -1) {
+                    return str;
+                }
+                // rare, let gson deal with the escapes
+                return GSON.fromJson(json.substring(start - 1, pos), String.class);
+            }
+
+            private void expectLiteral(String literal) {
+                if (!json.startsWith(literal, pos)) {
+                    throw malformed();
+                }
+                pos += literal.length();
+            }
+
+            private void expect(char c) {
+                if (peek() != c) {
+                    throw malformed();
+                }
+                pos++;
+            }
+
+            private char peek() {
+                if (pos >= json.length()) {
+                    throw malformed();
+                }
+                return json.charAt(pos);
+            }
+
+            private void skipWhitespace() {
+                while (pos < json.length()) {
+                    char c = json.charAt(pos);
+                    if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                        return;
+                    }
+                    pos++;
+                }
+            }
+
+            private JsonParseException malformed() {
+                return new JsonParseException("Malformed JSON at offset " + pos);
+            }
+        }
     }
 
     private static class MyText {
-        String translate = "";
-        Arg[] with = new Arg[0];
-
         private static class Arg {
             HoverEvent hoverEvent;
-            JsonElement remainder;
 
-            private static class Serializer implements JsonSerializer<Arg>, JsonDeserializer<Arg> {
+            private static class Deserializer implements JsonDeserializer<Arg> {
                 @Override
                 public Arg deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
                     Arg result = new Arg();
@@ -207,20 +541,8 @@ public class SPacketGameMessage_1_18_2 implements SPacketGameMessage {
                             result.hoverEvent = context.deserialize(jsonObj.get("hoverEvent"), HoverEvent.class);
                         }
                     }
-                    result.remainder = json;
                     return result;
                 }
-
-                @Override
-                public JsonElement serialize(Arg src, Type typeOfSrc, JsonSerializationContext context) {
-                    if (src.remainder.isJsonObject()) {
-                        JsonObject obj = src.remainder.getAsJsonObject();
-                        if (src.hoverEvent != null) {
-                            obj.add("hoverEvent", context.serialize(src.hoverEvent));
-                        }
-                    }
-                    return src.remainder;
-                }
             }
         }
 
@@ -232,9 +554,8 @@ public class SPacketGameMessage_1_18_2 implements SPacketGameMessage {
 
         private static class Contents {
             String id = "";
-            JsonElement remainder;
 
-            private static class Serializer implements JsonSerializer<Contents>, JsonDeserializer<Contents> {
+            private static class Deserializer implements JsonDeserializer<Contents> {
                 @Override
                 public Contents deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
                     Contents result = new Contents();
@@ -244,20 +565,8 @@ public class SPacketGameMessage_1_18_2 implements SPacketGameMessage {
                             result.id = context.deserialize(jsonObj.get("id"), String.class);
                         }
                     }
-                    result.remainder = json;
                     return result;
                 }
-
-                @Override
-                public JsonElement serialize(Contents src, Type typeOfSrc, JsonSerializationContext context) {
-                    if (src.remainder.isJsonObject()) {
-                        JsonObject obj = src.remainder.getAsJsonObject();
-                        if (src.id != null) {
-                            obj.add("id", context.serialize(src.id));
-                        }
-                    }
-                    return src.remainder;
-                }
             }
         }
     }
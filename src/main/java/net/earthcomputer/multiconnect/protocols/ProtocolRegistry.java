@@ -1,6 +1,7 @@
 package net.earthcomputer.multiconnect.protocols;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.earthcomputer.multiconnect.api.ThreadSafe;
 import net.earthcomputer.multiconnect.protocols.generic.AbstractProtocol;
 import net.earthcomputer.multiconnect.protocols.v1_10.Protocol_1_10;
 import net.earthcomputer.multiconnect.protocols.v1_11.Protocol_1_11;
@@ -36,62 +37,90 @@ import net.earthcomputer.multiconnect.protocols.v1_9_2.Protocol_1_9_2;
 import net.earthcomputer.multiconnect.protocols.v1_9_4.Protocol_1_9_4;
 import net.minecraft.SharedConstants;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
 import static net.earthcomputer.multiconnect.api.Protocols.*;
 
+/**
+ * Protocol instances are only created when they are first requested, so that the classes of protocols which are never
+ * connected to are never loaded.
+ */
 public class ProtocolRegistry {
+    private static final Int2ObjectOpenHashMap<Supplier<AbstractProtocol>> factories = new Int2ObjectOpenHashMap<>();
     private static final Int2ObjectOpenHashMap<AbstractProtocol> protocols = new Int2ObjectOpenHashMap<>();
 
-    public static AbstractProtocol get(int version) {
-        return protocols.get(version);
+    @ThreadSafe
+    public static synchronized AbstractProtocol get(int version) {
+        AbstractProtocol protocol = protocols.get(version);
+        if (protocol == null) {
+            Supplier<AbstractProtocol> factory = factories.get(version);
+            if (factory == null) {
+                return null;
+            }
+            protocol = factory.get();
+            protocol.setProtocolVersion(version);
+            protocols.put(version, protocol);
+        }
+        return protocol;
     }
 
+    @ThreadSafe
     public static AbstractProtocol latest() {
-        return protocols.get(SharedConstants.getGameVersion().getProtocolVersion());
+        return get(SharedConstants.getGameVersion().getProtocolVersion());
     }
 
+    /**
+     * Creates all protocols which haven't been created yet, only use for debugging
+     */
+    @ThreadSafe
     public static Iterable<AbstractProtocol> all() {
-        return protocols.values();
+        List<AbstractProtocol> result = new ArrayList<>(factories.size());
+        for (int version : factories.keySet()) {
+            result.add(get(version));
+        }
+        return result;
     }
 
-
-    private static void register(int version, AbstractProtocol protocol) {
-        protocol.setProtocolVersion(version);
-        protocols.put(version, protocol);
+    // lambdas rather than constructor references, so that the protocol classes aren't resolved until they're needed
+    private static void register(int version, Supplier<AbstractProtocol> factory) {
+        factories.put(version, factory);
     }
 
     static {
-        register(V1_19, new Protocol_1_19());
-        register(V1_18_2, new Protocol_1_18_2());
-        register(V1_18, new Protocol_1_18());
-        register(V1_17_1, new Protocol_1_17_1());
-        register(V1_17, new Protocol_1_17());
-        register(V1_16_5, new Protocol_1_16_5());
-        register(V1_16_3, new Protocol_1_16_3());
-        register(V1_16_2, new Protocol_1_16_2());
-        register(V1_16_1, new Protocol_1_16_1());
-        register(V1_16, new Protocol_1_16());
-        register(V1_15_2, new Protocol_1_15_2());
-        register(V1_15_1, new Protocol_1_15_1());
-        register(V1_15, new Protocol_1_15());
-        register(V1_14_4, new Protocol_1_14_4());
-        register(V1_14_3, new Protocol_1_14_3());
-        register(V1_14_2, new Protocol_1_14_2());
-        register(V1_14_1, new Protocol_1_14_1());
-        register(V1_14, new Protocol_1_14());
-        register(V1_13_2, new Protocol_1_13_2());
-        register(V1_13_1, new Protocol_1_13_1());
-        register(V1_13, new Protocol_1_13());
-        register(V1_12_2, new Protocol_1_12_2());
-        register(V1_12_1, new Protocol_1_12_1());
-        register(V1_12, new Protocol_1_12());
-        register(V1_11_2, new Protocol_1_11_2());
-        register(V1_11, new Protocol_1_11());
-        register(V1_10, new Protocol_1_10());
-        register(V1_9_4, new Protocol_1_9_4());
-        register(V1_9_2, new Protocol_1_9_2());
-        register(V1_9_1, new Protocol_1_9_1());
-        register(V1_9, new Protocol_1_9());
-        register(V1_8, new Protocol_1_8());
+        register(V1_19, () -> new Protocol_1_19());
+        register(V1_18_2, () -> new Protocol_1_18_2());
+        register(V1_18, () -> new Protocol_1_18());
+        register(V1_17_1, () -> new Protocol_1_17_1());
+        register(V1_17, () -> new Protocol_1_17());
+        register(V1_16_5, () -> new Protocol_1_16_5());
+        register(V1_16_3, () -> new Protocol_1_16_3());
+        register(V1_16_2, () -> new Protocol_1_16_2());
+        register(V1_16_1, () -> new Protocol_1_16_1());
+        register(V1_16, () -> new Protocol_1_16());
+        register(V1_15_2, () -> new Protocol_1_15_2());
+        register(V1_15_1, () -> new Protocol_1_15_1());
+        register(V1_15, () -> new Protocol_1_15());
+        register(V1_14_4, () -> new Protocol_1_14_4());
+        register(V1_14_3, () -> new Protocol_1_14_3());
+        register(V1_14_2, () -> new Protocol_1_14_2());
+        register(V1_14_1, () -> new Protocol_1_14_1());
+        register(V1_14, () -> new Protocol_1_14());
+        register(V1_13_2, () -> new Protocol_1_13_2());
+        register(V1_13_1, () -> new Protocol_1_13_1());
+        register(V1_13, () -> new Protocol_1_13());
+        register(V1_12_2, () -> new Protocol_1_12_2());
+        register(V1_12_1, () -> new Protocol_1_12_1());
+        register(V1_12, () -> new Protocol_1_12());
+        register(V1_11_2, () -> new Protocol_1_11_2());
+        register(V1_11, () -> new Protocol_1_11());
+        register(V1_10, () -> new Protocol_1_10());
+        register(V1_9_4, () -> new Protocol_1_9_4());
+        register(V1_9_2, () -> new Protocol_1_9_2());
+        register(V1_9_1, () -> new Protocol_1_9_1());
+        register(V1_9, () -> new Protocol_1_9());
+        register(V1_8, () -> new Protocol_1_8());
     }
 
 }
@@ -2,7 +2,10 @@ package net.earthcomputer.multiconnect.protocols.generic;
 
 import com.google.common.base.Suppliers;
 import net.earthcomputer.multiconnect.api.ThreadSafe;
+import net.earthcomputer.multiconnect.impl.DebugUtils;
 import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.mixin.bridge.AbstractBlockAccessor;
+import net.earthcomputer.multiconnect.mixin.bridge.AbstractBlockStateAccessor;
 import net.earthcomputer.multiconnect.mixin.bridge.MinecraftClientAccessor;
 import net.earthcomputer.multiconnect.protocols.generic.blockconnections.BlockConnections;
 import net.earthcomputer.multiconnect.protocols.generic.blockconnections.BlockConnector;
@@ -18,7 +21,9 @@ import net.minecraft.network.packet.s2c.play.ChunkDataS2CPacket;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.registry.Registry;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.Supplier;
@@ -28,6 +33,9 @@ public abstract class AbstractProtocol {
 
     private int protocolVersion;
     private final Supplier<BlockConnector> lazyBlockConnector = Suppliers.memoize(() -> BlockConnections.buildConnector(protocolVersion));
+    // the results of getBlockHardness and getBlockResistance, indexed by raw ID, so the mixins don't walk the overrides
+    private float @Nullable [] blockHardnesses;
+    private float @Nullable [] blockResistances;
 
     // To be called by ProtocolRegistry only!
     public void setProtocolVersion(int protocolVersion) {
@@ -36,14 +44,22 @@ public abstract class AbstractProtocol {
 
     public void setup(boolean resourceReload) {
         PacketSystem.connect();
+        computeBlockPropertyTables();
         revertCollisionBoxes();
         if (!resourceReload) {
             DataTrackerManager.onConnectToServer();
         }
+        markChangedCollisionBoxes();
+        // there is no client instance when running headless in the unit tests and benchmarks
+        if (!DebugUtils.UNIT_TEST_MODE) {
+            setupClient(resourceReload);
+        }
+    }
+
+    private void setupClient(boolean resourceReload) {
         if (!resourceReload) {
             AssetDownloader.reloadLanguages();
         }
-        markChangedCollisionBoxes();
         ((MinecraftClientAccessor) MinecraftClient.getInstance()).getSearchManager().reload(MinecraftClient.getInstance().getResourceManager());
     }
 
@@ -105,6 +121,35 @@ public abstract class AbstractProtocol {
         return resistance;
     }
 
+    private void computeBlockPropertyTables() {
+        float[] hardnesses = new float[Block.STATE_IDS.size()];
+        for (BlockState state : Block.STATE_IDS) {
+            hardnesses[Block.getRawIdFromState(state)] = getBlockHardness(state, ((AbstractBlockStateAccessor) state).getRawHardness());
+        }
+        float[] resistances = new float[Registry.BLOCK.size()];
+        for (Block block : Registry.BLOCK) {
+            resistances[Registry.BLOCK.getRawId(block)] = getBlockResistance(block, ((AbstractBlockAccessor) block).getResistance());
+        }
+        blockHardnesses = hardnesses;
+        blockResistances = resistances;
+    }
+
+    /**
+     * Returns {@link #getBlockHardness} evaluated for each block state raw ID, or {@code null} if this protocol has
+     * not been set up yet
+     */
+    public float @Nullable [] getBlockHardnessTable() {
+        return blockHardnesses;
+    }
+
+    /**
+     * Returns {@link #getBlockResistance} evaluated for each block raw ID, or {@code null} if this protocol has not
+     * been set up yet
+     */
+    public float @Nullable [] getBlockResistanceTable() {
+        return blockResistances;
+    }
+
     public int clientSlotIdToServer(ScreenHandler screenHandler, int slotId) {
         return slotId;
     }
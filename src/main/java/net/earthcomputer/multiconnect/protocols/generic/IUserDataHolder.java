@@ -0,0 +1,16 @@
+package net.earthcomputer.multiconnect.protocols.generic;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented by the packets which commonly carry user data from translation, so that their user data is stored on the
+ * packet itself rather than looked up in a map for every packet.
+ */
+public interface IUserDataHolder {
+
+    @Nullable
+    TypedMap multiconnect_getUserData();
+
+    void multiconnect_setUserData(TypedMap userData);
+
+}
@@ -1,13 +1,23 @@
 package net.earthcomputer.multiconnect.protocols.generic;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 public final class Key<T> {
+    private static final AtomicInteger nextSlot = new AtomicInteger();
+
     private final String name;
     private final Supplier<T> defaultValue;
+    // dense index of this key in a TypedMap's backing array
+    final int slot;
     private Key(String name, Supplier<T> defaultValue) {
         this.name = name;
         this.defaultValue = defaultValue;
+        this.slot = nextSlot.getAndIncrement();
+    }
+
+    static int getSlotCount() {
+        return nextSlot.get();
     }
 
     public static <T> Key<T> create(String name) {
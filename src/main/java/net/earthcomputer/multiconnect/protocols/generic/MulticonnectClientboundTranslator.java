@@ -3,10 +3,11 @@ package net.earthcomputer.multiconnect.protocols.generic;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
-import net.earthcomputer.multiconnect.impl.ConnectionInfo;
 import net.earthcomputer.multiconnect.impl.DebugUtils;
 import net.earthcomputer.multiconnect.impl.PacketIntrinsics;
 import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
+import net.earthcomputer.multiconnect.impl.TranslationMetrics;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.network.ClientConnection;
 import net.minecraft.network.listener.PacketListener;
@@ -25,28 +26,43 @@ public class MulticonnectClientboundTranslator extends ByteToMessageDecoder {
         } else {
             networkHandler = null;
         }
+        TranslationContext context = PacketSystem.getContext(ctx.channel());
         TypedMap userData = new TypedMap();
+        if (DebugUtils.STORE_BUFS_FOR_HANDLER) {
+            userData.put(DebugUtils.STORED_BUF, DebugUtils.getBufData(in));
+        }
+
+        context.capture(true, in);
+
+        // taken before dispatch reads the packet ID, so that the ID is included
+        int packetId = TranslationMetrics.peekPacketId(in);
+        int bytesIn = in.readableBytes();
 
         DebugUtils.wrapInErrorHandler(in, "inbound", () -> {
-            var result = PacketSystem.Internals.translateSPacket(ConnectionInfo.protocolVersion, in);
-            ByteBuf inCopy = in.copy(0, in.readerIndex() + in.readableBytes());
-            inCopy.readerIndex(in.readerIndex());
+            var result = PacketSystem.Internals.translateSPacket(context, in);
+            // the decoder releases its input after we return, so retain a view of it for the translation task
+            ByteBuf inSlice = in.retainedSlice(0, in.readerIndex() + in.readableBytes());
+            inSlice.readerIndex(in.readerIndex());
             in.readerIndex(in.readerIndex() + in.readableBytes());
             List<ByteBuf> outBufs = new ArrayList<>(1);
-            PacketSystem.Internals.submitTranslationTask(result.readDependencies(), result.writeDependencies(), () -> {
-                DebugUtils.wrapInErrorHandler(inCopy, "inbound", () -> {
-                    result.sender().send(inCopy, outBufs, networkHandler, PacketSystem.Internals.getGlobalData(), userData);
-                    for (ByteBuf outBuf : outBufs) {
-                        PacketSystem.Internals.setUserData(outBuf, userData);
-                    }
+            PacketSystem.Internals.submitTranslationTask(context, ctx.channel(), inSlice, result.readDependencies(), result.writeDependencies(), result.heavy(), result.unordered(), TranslationMetrics.wrap(true, packetId, bytesIn, outBufs, () -> {
+                DebugUtils.wrapInErrorHandler(inSlice, "inbound", () -> {
+                    result.sender().send(inSlice, outBufs, networkHandler, context.getGlobalData(), userData);
                 });
-            }, () -> {
+            }), () -> {
                 PacketIntrinsics.sendRawToClient(networkHandler, userData, outBufs);
             }, true);
         });
+    }
 
-        if (DebugUtils.STORE_BUFS_FOR_HANDLER) {
-            userData.put(DebugUtils.STORED_BUF, DebugUtils.getBufData(in));
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        // We never output anything, so the default implementation would request another read even when auto-read has
+        // been turned off by the translation executor applying back pressure.
+        if (!ctx.channel().config().isAutoRead()) {
+            ctx.fireChannelReadComplete();
+            return;
         }
+        super.channelReadComplete(ctx);
     }
 }
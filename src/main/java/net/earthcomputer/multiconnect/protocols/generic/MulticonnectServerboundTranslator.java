@@ -4,10 +4,11 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
-import net.earthcomputer.multiconnect.impl.ConnectionInfo;
 import net.earthcomputer.multiconnect.impl.DebugUtils;
 import net.earthcomputer.multiconnect.impl.PacketIntrinsics;
 import net.earthcomputer.multiconnect.impl.PacketSystem;
+import net.earthcomputer.multiconnect.impl.TranslationContext;
+import net.earthcomputer.multiconnect.impl.TranslationMetrics;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.network.ClientConnection;
 import net.minecraft.network.listener.PacketListener;
@@ -30,21 +31,26 @@ public class MulticonnectServerboundTranslator extends ChannelOutboundHandlerAda
         } else {
             networkHandler = null;
         }
+        TranslationContext context = PacketSystem.getContext(ctx.channel());
         TypedMap userData = new TypedMap();
 
         List<ByteBuf> bufs = new ArrayList<>(1);
 
+        context.capture(false, untranslated);
+
+        // taken before dispatch reads the packet ID, so that the ID is included
+        int packetId = TranslationMetrics.peekPacketId(untranslated);
+        int bytesIn = untranslated.readableBytes();
+
         DebugUtils.wrapInErrorHandler(untranslated, "outbound", () -> {
-            var result = PacketSystem.Internals.translateCPacket(ConnectionInfo.protocolVersion, untranslated);
-            ByteBuf inCopy = untranslated.copy(0, untranslated.readerIndex() + untranslated.readableBytes());
-            inCopy.readerIndex(untranslated.readerIndex());
-            untranslated.readerIndex(untranslated.readerIndex() + untranslated.readableBytes());
-            PacketSystem.Internals.submitTranslationTask(result.readDependencies(), result.writeDependencies(), () -> {
-                DebugUtils.wrapInErrorHandler(inCopy, "outbound", () -> {
-                    result.sender().send(inCopy, bufs, networkHandler, PacketSystem.Internals.getGlobalData(), userData);
+            var result = PacketSystem.Internals.translateCPacket(context, untranslated);
+            // we own the written message, so its ownership passes straight to the translation task
+            PacketSystem.Internals.submitTranslationTask(context, ctx.channel(), untranslated, result.readDependencies(), result.writeDependencies(), result.heavy(), result.unordered(), TranslationMetrics.wrap(false, packetId, bytesIn, bufs, () -> {
+                DebugUtils.wrapInErrorHandler(untranslated, "outbound", () -> {
+                    result.sender().send(untranslated, bufs, networkHandler, context.getGlobalData(), userData);
                     // don't need user data in the serverbound direction
                 });
-            }, () -> {
+            }), () -> {
                 PacketIntrinsics.sendRawToServer(networkHandler, bufs);
             }, false);
         });
@@ -1,14 +1,19 @@
 package net.earthcomputer.multiconnect.protocols.generic;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * A map from {@link Key}s to values, backed by an array indexed by each key's slot. The array is only allocated on the
+ * first {@link #put}, since most maps never have anything stored in them.
+ */
 @SuppressWarnings("unchecked")
 public class TypedMap {
-    private final Map<Key<?>, Object> map = new HashMap<>();
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] values = EMPTY;
 
     public <T> T get(Key<T> key) {
-        T value = (T) map.get(key);
+        T value = key.slot < values.length ? (T) values[key.slot] : null;
         if (value == null) {
             value = key.getDefaultValue();
         }
@@ -16,14 +21,44 @@ public class TypedMap {
     }
 
     public <T> T put(Key<T> key, T value) {
-        return (T) map.put(key, value);
+        if (key.slot >= values.length) {
+            if (value == null) {
+                return null;
+            }
+            values = Arrays.copyOf(values, Math.max(key.slot + 1, Key.getSlotCount()));
+        }
+        T oldValue = (T) values[key.slot];
+        values[key.slot] = value;
+        return oldValue;
+    }
+
+    public boolean isEmpty() {
+        for (Object value : values) {
+            if (value != null) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public void clear() {
-        map.clear();
+        Arrays.fill(values, null);
     }
 
     public void putAll(TypedMap other) {
-        map.putAll(other.map);
+        if (values == EMPTY) {
+            if (other.values != EMPTY) {
+                values = other.values.clone();
+            }
+            return;
+        }
+        if (other.values.length > values.length) {
+            values = Arrays.copyOf(values, other.values.length);
+        }
+        for (int i = 0; i < other.values.length; i++) {
+            if (other.values[i] != null) {
+                values[i] = other.values[i];
+            }
+        }
     }
 }
@@ -1,6 +1,5 @@
 package net.earthcomputer.multiconnect.protocols.generic.blockconnections;
 
-import it.unimi.dsi.fastutil.ints.IntSet;
 import net.earthcomputer.multiconnect.api.ThreadSafe;
 import net.earthcomputer.multiconnect.protocols.generic.Key;
 import net.earthcomputer.multiconnect.protocols.generic.blockconnections.connectors.CompoundConnector;
@@ -12,7 +11,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class BlockConnections {
-    public static final Key<EnumMap<EightWayDirection, IntSet>> BLOCKS_NEEDING_UPDATE_KEY = Key.create("blocksNeedingUpdate", () -> new EnumMap<>(EightWayDirection.class));
+    public static final Key<EnumMap<EightWayDirection, BitSet>> BLOCKS_NEEDING_UPDATE_KEY = Key.create("blocksNeedingUpdate", () -> new EnumMap<>(EightWayDirection.class));
 
     private static final NavigableMap<Integer, Map<Block, IBlockConnector>> connectors = new TreeMap<>();
 
@@ -1,117 +1,167 @@
 package net.earthcomputer.multiconnect.protocols.generic.blockconnections;
 
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.earthcomputer.multiconnect.impl.Utils;
 import net.earthcomputer.multiconnect.packets.ChunkData;
 import net.earthcomputer.multiconnect.packets.latest.ChunkData_Latest;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
-import net.minecraft.util.collection.PackedIntegerArray;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
-import org.apache.commons.lang3.ArrayUtils;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
- * Assumes that block state IDs have been translated by this point
+ * Assumes that block state IDs have been translated by this point.
+ *
+ * <p>Sections are unpacked into plain arrays of raw block state IDs the first time they are read from (or written to,
+ * in the case of singleton sections), so that each block access is a single array lookup. Modified sections are only
+ * repacked into the packet once, in {@link #flush()}, which must be called once all modifications have been made.
  */
-public class BlockConnectionsNetworkView implements IBlockConnectionsBlockView {
+public class BlockConnectionsNetworkView implements IBlockConnectionsBlockView, IRawBlockConnectionsBlockView {
+    private static final int AIR_ID = Block.getRawIdFromState(Blocks.AIR.getDefaultState());
+
+    private final int protocolVersion;
     private final int minY;
     private final List<ChunkData.Section> sections;
-    private final PackedIntegerArray[] packedArrays;
+    private final int[][] unpackedSections;
+    private final boolean[] dirtySections;
 
-    public BlockConnectionsNetworkView(int minY, List<ChunkData.Section> sections) {
+    public BlockConnectionsNetworkView(int protocolVersion, int minY, List<ChunkData.Section> sections) {
+        this.protocolVersion = protocolVersion;
         this.minY = minY;
         this.sections = sections;
-        this.packedArrays = new PackedIntegerArray[sections.size()];
-        for (int i = 0; i < sections.size(); i++) {
-            var section = (ChunkData_Latest.ChunkSection) sections.get(i);
-            var blockStates = section.blockStates;
-            if (blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Multiple multiple) {
-                packedArrays[i] = new PackedIntegerArray(multiple.paletteSize, 4096, multiple.data);
-            } else if (blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.RegistryContainer registryContainer) {
-                packedArrays[i] = new PackedIntegerArray(registryContainer.paletteSize, 4096, registryContainer.data);
-            }
-        }
+        this.unpackedSections = new int[sections.size()][];
+        this.dirtySections = new boolean[sections.size()];
     }
 
     @Override
     public BlockState getBlockState(BlockPos pos) {
-        int sectionIndex = (pos.getY() - minY) >> 4;
+        return Block.getStateFromRawId(getBlockStateId(pos));
+    }
+
+    public int getBlockStateId(BlockPos pos) {
+        return getBlockStateId(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Override
+    public int getBlockStateId(int x, int y, int z) {
+        int sectionIndex = (y - minY) >> 4;
         if (sectionIndex < 0 || sectionIndex >= sections.size()) {
-            return Blocks.AIR.getDefaultState();
+            return AIR_ID;
         }
-        var section = (ChunkData_Latest.ChunkSection) sections.get(sectionIndex);
-        int stateId;
-        if (section.blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Singleton singleton) {
-            stateId = singleton.blockStateId;
-        } else if (section.blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Multiple multiple) {
-            stateId = packedArrays[sectionIndex].get((((pos.getY() - minY) & 15) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15));
-            stateId = multiple.palette[stateId];
-        } else {
-            stateId = packedArrays[sectionIndex].get((((pos.getY() - minY) & 15) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15));
+        int[] unpacked = unpackedSections[sectionIndex];
+        if (unpacked == null) {
+            var blockStates = ((ChunkData_Latest.ChunkSection) sections.get(sectionIndex)).blockStates;
+            if (blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Singleton singleton) {
+                return singleton.blockStateId;
+            }
+            unpacked = unpackSection(sectionIndex);
         }
-        return Block.getStateFromRawId(stateId);
+        return unpacked[getIndex(x, y, z)];
     }
 
     @Override
     public void setBlockState(BlockPos pos, BlockState state) {
-        int sectionIndex = (pos.getY() - minY) >> 4;
+        setBlockStateId(pos.getX(), pos.getY(), pos.getZ(), Block.getRawIdFromState(state));
+    }
+
+    @Override
+    public void setBlockStateId(int x, int y, int z, int stateId) {
+        int sectionIndex = (y - minY) >> 4;
         if (sectionIndex < 0 || sectionIndex >= sections.size()) {
             return;
         }
-        var section = (ChunkData_Latest.ChunkSection) sections.get(sectionIndex);
-        int stateId = Block.getRawIdFromState(state);
-        int index = (((pos.getY() - minY) & 15) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15);
-        if (section.blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Singleton singleton) {
-            if (stateId == singleton.blockStateId) {
-                return;
+        int[] unpacked = unpackedSections[sectionIndex];
+        if (unpacked == null) {
+            unpacked = unpackSection(sectionIndex);
+        }
+        int index = getIndex(x, y, z);
+        if (unpacked[index] != stateId) {
+            unpacked[index] = stateId;
+            dirtySections[sectionIndex] = true;
+        }
+    }
+
+    private int getIndex(int x, int y, int z) {
+        return (((y - minY) & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    private int[] unpackSection(int sectionIndex) {
+        var blockStates = ((ChunkData_Latest.ChunkSection) sections.get(sectionIndex)).blockStates;
+        int[] unpacked = new int[4096];
+        if (blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Singleton singleton) {
+            Arrays.fill(unpacked, singleton.blockStateId);
+        } else if (blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Multiple multiple) {
+            Utils.unpackIntegerArray(multiple.data, multiple.paletteSize, unpacked);
+            int[] palette = multiple.palette;
+            for (int i = 0; i < 4096; i++) {
+                unpacked[i] = palette[unpacked[i]];
             }
-            PackedIntegerArray packedArray = new PackedIntegerArray(4, 4096);
-            packedArray.set(index, 1);
-            packedArrays[sectionIndex] = packedArray;
-            var newBlockStates = new ChunkData_Latest.BlockStatePalettedContainer.Multiple();
-            newBlockStates.paletteSize = 4;
-            newBlockStates.palette = new int[] { singleton.blockStateId, stateId };
-            newBlockStates.data = packedArray.getData();
-            section.blockStates = newBlockStates;
-        } else if (section.blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Multiple multiple) {
-            PackedIntegerArray packedArray = packedArrays[sectionIndex];
-            int paletteIndex = ArrayUtils.indexOf(multiple.palette, stateId);
-            if (paletteIndex == -1) {
-                if (multiple.palette.length == 256) {
+        } else {
+            var registryContainer = (ChunkData_Latest.BlockStatePalettedContainer.RegistryContainer) blockStates;
+            Utils.unpackIntegerArray(registryContainer.data, registryContainer.paletteSize, unpacked);
+        }
+        unpackedSections[sectionIndex] = unpacked;
+        return unpacked;
+    }
+
+    /**
+     * Writes all modified sections back into the packet
+     */
+    public void flush() {
+        for (int sectionIndex = 0; sectionIndex < sections.size(); sectionIndex++) {
+            if (dirtySections[sectionIndex]) {
+                var section = (ChunkData_Latest.ChunkSection) sections.get(sectionIndex);
+                section.blockStates = packSection(unpackedSections[sectionIndex]);
+                dirtySections[sectionIndex] = false;
+            }
+        }
+    }
+
+    private static ChunkData_Latest.BlockStatePalettedContainer packSection(int[] unpacked) {
+        Int2IntOpenHashMap paletteIndexes = new Int2IntOpenHashMap();
+        paletteIndexes.defaultReturnValue(-1);
+        int[] palette = new int[16];
+        int paletteLength = 0;
+        for (int stateId : unpacked) {
+            if (paletteIndexes.putIfAbsent(stateId, paletteLength) == -1) {
+                if (paletteLength == 256) {
+                    // too many states for a palette, use the global registry
                     int elementBits = MathHelper.ceilLog2(Block.STATE_IDS.size());
-                    PackedIntegerArray newPackedArray = new PackedIntegerArray(elementBits, 4096);
-                    for (int i = 0; i < 4096; i++) {
-                        newPackedArray.set(i, multiple.palette[packedArray.get(i)]);
-                    }
-                    newPackedArray.set(index, stateId);
-                    packedArrays[sectionIndex] = newPackedArray;
-                    var newBlockStates = new ChunkData_Latest.BlockStatePalettedContainer.RegistryContainer();
-                    newBlockStates.paletteSize = (byte) elementBits;
-                    newBlockStates.data = newPackedArray.getData();
-                    section.blockStates = newBlockStates;
-                } else {
-                    paletteIndex = multiple.palette.length;
-                    multiple.palette = ArrayUtils.add(multiple.palette, stateId);
-                    if (paletteIndex >= 16 && MathHelper.isPowerOfTwo(paletteIndex)) {
-                        PackedIntegerArray newPackedArray = new PackedIntegerArray(packedArray.getElementBits() + 1, 4096);
-                        for (int i = 0; i < 4096; i++) {
-                            newPackedArray.set(i, packedArray.get(i));
-                        }
-                        multiple.paletteSize++;
-                        multiple.data = newPackedArray.getData();
-                        packedArrays[sectionIndex] = newPackedArray;
-                        packedArray = newPackedArray;
-                    }
-                    packedArray.set(index, paletteIndex);
+                    var registryContainer = new ChunkData_Latest.BlockStatePalettedContainer.RegistryContainer();
+                    registryContainer.paletteSize = (byte) elementBits;
+                    registryContainer.data = Utils.packIntegerArray(unpacked, elementBits);
+                    return registryContainer;
+                }
+                if (paletteLength == palette.length) {
+                    palette = Arrays.copyOf(palette, palette.length * 2);
                 }
-            } else {
-                packedArray.set(index, paletteIndex);
+                palette[paletteLength++] = stateId;
             }
-        } else {
-            packedArrays[sectionIndex].set(index, stateId);
         }
+
+        if (paletteLength == 1) {
+            var singleton = new ChunkData_Latest.BlockStatePalettedContainer.Singleton();
+            singleton.paletteSize = 0;
+            singleton.blockStateId = palette[0];
+            singleton.dummyData = new long[0];
+            return singleton;
+        }
+
+        int elementBits = Math.max(4, MathHelper.ceilLog2(paletteLength));
+        int[] paletteIndexArray = new int[4096];
+        for (int i = 0; i < 4096; i++) {
+            paletteIndexArray[i] = paletteIndexes.get(unpacked[i]);
+        }
+        var multiple = new ChunkData_Latest.BlockStatePalettedContainer.Multiple();
+        multiple.paletteSize = (byte) elementBits;
+        multiple.palette = Arrays.copyOf(palette, paletteLength);
+        multiple.data = Utils.packIntegerArray(paletteIndexArray, elementBits);
+        return multiple;
     }
 
     @Override
@@ -124,6 +174,34 @@ public class BlockConnectionsNetworkView implements IBlockConnectionsBlockView {
         return minY + 16 * sections.size() - 1;
     }
 
+    @Override
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * Returns whether the given section may contain any of the given block state IDs, judging only by its palette.
+     * Sections using the global registry directly have no palette, so may contain anything.
+     */
+    public boolean mayContainAny(int sectionIndex, BitSet stateIds) {
+        if (sectionIndex < 0 || sectionIndex >= sections.size()) {
+            return false;
+        }
+        var section = (ChunkData_Latest.ChunkSection) sections.get(sectionIndex);
+        if (section.blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Singleton singleton) {
+            return stateIds.get(singleton.blockStateId);
+        } else if (section.blockStates instanceof ChunkData_Latest.BlockStatePalettedContainer.Multiple multiple) {
+            for (int stateId : multiple.palette) {
+                if (stateIds.get(stateId)) {
+                    return true;
+                }
+            }
+            return false;
+        } else {
+            return true;
+        }
+    }
+
     public boolean doesSectionExist(int sectionIndex) {
         if (sectionIndex < 0 || sectionIndex >= sections.size()) {
             return false;
@@ -1,5 +1,6 @@
 package net.earthcomputer.multiconnect.protocols.generic.blockconnections;
 
+import net.earthcomputer.multiconnect.impl.ConnectionInfo;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.WorldAccess;
@@ -30,4 +31,10 @@ public class BlockConnectionsWorldView implements IBlockConnectionsBlockView {
     public int getMaxY() {
         return getMinY() + world.getDimension().height() - 1;
     }
+
+    @Override
+    public int getProtocolVersion() {
+        // the client world is only fixed for the game's own connection
+        return ConnectionInfo.protocolVersion;
+    }
 }
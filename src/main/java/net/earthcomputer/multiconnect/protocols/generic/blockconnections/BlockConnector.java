@@ -1,23 +1,39 @@
 package net.earthcomputer.multiconnect.protocols.generic.blockconnections;
 
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-import it.unimi.dsi.fastutil.ints.IntSet;
 import net.earthcomputer.multiconnect.api.ThreadSafe;
 import net.earthcomputer.multiconnect.protocols.generic.blockconnections.connectors.IBlockConnector;
+import net.earthcomputer.multiconnect.protocols.generic.blockconnections.connectors.IRawBlockConnector;
+import net.earthcomputer.multiconnect.protocols.generic.blockconnections.connectors.IRawConnectorFunction;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.EightWayDirection;
 
+import java.util.BitSet;
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 @ThreadSafe
 public class BlockConnector {
     private final Map<Block, IBlockConnector> connectors;
+    // the block state IDs of all blocks which have a connector, to cheaply skip sections and positions
+    private final BitSet connectableStates = new BitSet();
+    // the raw ID tables of the connectors which have them, used for fixing chunk data
+    private final Map<Block, IRawConnectorFunction> rawFunctions = new HashMap<>();
 
     BlockConnector(Map<Block, IBlockConnector> connectors) {
         this.connectors = connectors;
+        Map<IBlockConnector, IRawConnectorFunction> createdRawFunctions = new IdentityHashMap<>();
+        for (var entry : connectors.entrySet()) {
+            for (BlockState state : entry.getKey().getStateManager().getStates()) {
+                connectableStates.set(Block.getRawIdFromState(state));
+            }
+            if (entry.getValue() instanceof IRawBlockConnector rawConnector) {
+                rawFunctions.put(entry.getKey(), createdRawFunctions.computeIfAbsent(rawConnector, k -> rawConnector.createRawFunction()));
+            }
+        }
     }
 
     public boolean shouldProcess(Block block) {
@@ -40,7 +56,7 @@ public class BlockConnector {
         }
     }
 
-    public void fixChunkData(BlockConnectionsNetworkView connectionsView, EnumMap<EightWayDirection, IntSet> blocksNeedingUpdateOut) {
+    public void fixChunkData(BlockConnectionsNetworkView connectionsView, EnumMap<EightWayDirection, BitSet> blocksNeedingUpdateOut) {
         // early exit if no fixing ever needs to be done
         if (connectors.isEmpty()) {
             return;
@@ -49,19 +65,31 @@ public class BlockConnector {
         int minY = connectionsView.getMinY();
         int numSections = (connectionsView.getMaxY() - minY + 1) >> 4;
         for (int sectionIndex = 0; sectionIndex < numSections; sectionIndex++) {
-            if (connectionsView.doesSectionExist(sectionIndex)) {
+            if (connectionsView.doesSectionExist(sectionIndex) && connectionsView.mayContainAny(sectionIndex, connectableStates)) {
                 for (BlockPos pos : BlockPos.iterate(0, (sectionIndex << 4) + minY, 0, 15, (sectionIndex << 4) + 15 + minY, 15)) {
-                    IBlockConnector connector = connectors.get(connectionsView.getBlockState(pos).getBlock());
+                    int stateId = connectionsView.getBlockStateId(pos);
+                    if (!connectableStates.get(stateId)) {
+                        continue;
+                    }
+                    Block block = Block.getStateFromRawId(stateId).getBlock();
+                    IBlockConnector connector = connectors.get(block);
                     if (connector != null) {
                         EightWayDirection dir = ChunkConnector.directionForPos(pos);
                         if (dir == null || !connector.needsNeighbors()) {
-                            connector.fix(connectionsView, pos);
+                            IRawConnectorFunction rawFunction = rawFunctions.get(block);
+                            if (rawFunction != null) {
+                                rawFunction.fix(connectionsView, pos.getX(), pos.getY(), pos.getZ(), stateId);
+                            } else {
+                                connector.fix(connectionsView, pos);
+                            }
                         } else {
-                            blocksNeedingUpdateOut.computeIfAbsent(dir, k -> new IntOpenHashSet()).add(ChunkConnector.packLocalPos(connectionsView.getMinY(), pos));
+                            blocksNeedingUpdateOut.computeIfAbsent(dir, k -> new BitSet(16 * numSections * 16)).set(ChunkConnector.packEdgePos(minY, dir, pos));
                         }
                     }
                 }
             }
         }
+
+        connectionsView.flush();
     }
 }
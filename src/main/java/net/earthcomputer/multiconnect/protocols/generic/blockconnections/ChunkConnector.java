@@ -1,26 +1,31 @@
 package net.earthcomputer.multiconnect.protocols.generic.blockconnections;
 
-import it.unimi.dsi.fastutil.ints.IntIterator;
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-import it.unimi.dsi.fastutil.ints.IntSet;
 import net.minecraft.block.Block;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.EightWayDirection;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.ChunkStatus;
 import net.minecraft.world.chunk.WorldChunk;
 
+import java.util.BitSet;
 import java.util.EnumMap;
 
+/**
+ * Blocks on the edge of a chunk which need their neighbors to be fixed are tracked as one bitmap per
+ * {@link EightWayDirection}, indexed by {@link #packEdgePos}: 16 bits per y level along the edge. These are resolved
+ * in a single pass once all the chunks in that direction are loaded.
+ */
 public class ChunkConnector {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
     private final WorldChunk chunk;
     private final BlockConnectionsWorldView worldView;
     private final BlockConnector connector;
-    private final EnumMap<EightWayDirection, IntSet> blocksNeedingUpdate;
+    private final EnumMap<EightWayDirection, BitSet> blocksNeedingUpdate;
+    private final BlockPos.Mutable mutablePos = new BlockPos.Mutable();
 
-    public ChunkConnector(WorldChunk chunk, BlockConnector connector, EnumMap<EightWayDirection, IntSet> blocksNeedingUpdate) {
+    public ChunkConnector(WorldChunk chunk, BlockConnector connector, EnumMap<EightWayDirection, BitSet> blocksNeedingUpdate) {
         this.chunk = chunk;
         this.worldView = new BlockConnectionsWorldView(chunk.getWorld());
         this.connector = connector;
@@ -57,63 +62,90 @@ public class ChunkConnector {
         }
     }
 
-    public static int packLocalPos(int minY, BlockPos pos) {
-        return (pos.getX() & 15) | ((pos.getZ() & 15) << 4) | (((pos.getY() - minY) & 2047) << 8);
+    /**
+     * Packs a position on the given edge of the chunk into an index into that edge's bitmap. The position along the
+     * edge is the z coordinate for the west and east edges, and the x coordinate otherwise.
+     */
+    public static int packEdgePos(int minY, EightWayDirection dir, BlockPos pos) {
+        int along = dir == EightWayDirection.WEST || dir == EightWayDirection.EAST ? pos.getZ() & 15 : pos.getX() & 15;
+        return ((pos.getY() - minY) << 4) | along;
     }
 
-    private int packLocalPos(BlockPos pos) {
-        return packLocalPos(worldView.getMinY(), pos);
+    private void unpackEdgePos(EightWayDirection dir, int packed, BlockPos.Mutable result) {
+        int along = packed & 15;
+        int localX, localZ;
+        switch (dir) {
+            case WEST -> { localX = 0; localZ = along; }
+            case EAST -> { localX = 15; localZ = along; }
+            case NORTH, NORTH_WEST, NORTH_EAST -> { localX = along; localZ = 0; }
+            default -> { localX = along; localZ = 15; }
+        }
+        result.set(chunk.getPos().getStartX() + localX, (packed >> 4) + worldView.getMinY(), chunk.getPos().getStartZ() + localZ);
     }
 
-    private int unpackLocalX(int packed) {
-        return packed & 15;
+    public void onNeighborChunkLoaded(Direction side) {
+        for (EightWayDirection dir : EightWayDirection.values()) {
+            if (dir.getDirections().contains(side)) {
+                resolveIfNeighborsLoaded(dir);
+            }
+        }
     }
 
-    private int unpackLocalY(int packed) {
-        return (packed >> 8) & 2047 + worldView.getMinY();
+    /**
+     * Fixes the blocks on all edges whose neighboring chunks are loaded
+     */
+    public void onNeighborChunksLoaded() {
+        for (EightWayDirection dir : EightWayDirection.values()) {
+            resolveIfNeighborsLoaded(dir);
+        }
     }
 
-    private int unpackLocalZ(int packed) {
-        return (packed >> 4) & 15;
-    }
+    private void resolveIfNeighborsLoaded(EightWayDirection dir) {
+        BitSet edge = blocksNeedingUpdate.get(dir);
+        if (edge == null || !areNeighborsLoaded(dir)) {
+            return;
+        }
 
-    public void onNeighborChunkLoaded(Direction side) {
+        // remove first, so that updates triggered while fixing are tracked freshly
+        blocksNeedingUpdate.remove(dir);
         BlockPos.Mutable pos = new BlockPos.Mutable();
-        for (EightWayDirection dir : EightWayDirection.values()) {
-            IntSet set = blocksNeedingUpdate.get(dir);
-            if (set != null && dir.getDirections().contains(side)) {
-                boolean allNeighborsLoaded = true;
-                for (Direction requiredDir : dir.getDirections()) {
-                    if (requiredDir != side && chunk.getWorld().getChunk(chunk.getPos().x + requiredDir.getOffsetX(), chunk.getPos().z + requiredDir.getOffsetZ(), ChunkStatus.FULL, false) == null) {
-                        allNeighborsLoaded = false;
-                        break;
-                    }
-                }
+        for (int packed = edge.nextSetBit(0); packed >= 0; packed = edge.nextSetBit(packed + 1)) {
+            unpackEdgePos(dir, packed, pos);
+            connector.fix(worldView, pos, worldView.getBlockState(pos).getBlock());
+        }
+    }
 
-                if (allNeighborsLoaded) {
-                    IntIterator itr = set.iterator();
-                    while (itr.hasNext()) {
-                        int packed = itr.nextInt();
-                        pos.set(chunk.getPos().getStartX() + unpackLocalX(packed), unpackLocalY(packed), chunk.getPos().getStartZ() + unpackLocalZ(packed));
-                        connector.fix(worldView, pos, worldView.getBlockState(pos).getBlock());
-                    }
-                    blocksNeedingUpdate.remove(dir);
-                }
+    private boolean areNeighborsLoaded(EightWayDirection dir) {
+        for (Direction offset : dir.getDirections()) {
+            int chunkX = chunk.getPos().x + offset.getOffsetX();
+            int chunkZ = chunk.getPos().z + offset.getOffsetZ();
+            if (chunk.getWorld().getChunk(chunkX, chunkZ, ChunkStatus.FULL, false) == null) {
+                return false;
             }
         }
+        return true;
     }
 
     public void onBlockChange(BlockPos pos, Block newBlock, boolean updateNeighbors) {
         if (updateBlock(pos, newBlock) || updateNeighbors) {
-            for (Direction dir : Direction.values()) {
-                BlockPos offsetPos = new BlockPos(
-                        chunk.getPos().getStartX() + (pos.getX() & 15) + dir.getOffsetX(),
-                        pos.getY() + dir.getOffsetY(),
-                        chunk.getPos().getStartZ() + (pos.getZ() & 15) + dir.getOffsetZ());
-                ChunkPos offsetChunkPos = new ChunkPos(offsetPos);
-                Chunk offsetChunk = offsetChunkPos.equals(chunk.getPos()) ? chunk : chunk.getWorld().getChunk(offsetChunkPos.x, offsetChunkPos.z, ChunkStatus.FULL, false);
+            // capture the coordinates first, pos may be the mutable position of this or another connector
+            int x = pos.getX();
+            int y = pos.getY();
+            int z = pos.getZ();
+            int chunkX = chunk.getPos().x;
+            int chunkZ = chunk.getPos().z;
+            for (Direction dir : DIRECTIONS) {
+                int offsetX = x + dir.getOffsetX();
+                int offsetZ = z + dir.getOffsetZ();
+                Chunk offsetChunk = (offsetX >> 4) == chunkX && (offsetZ >> 4) == chunkZ
+                        ? chunk
+                        : chunk.getWorld().getChunk(offsetX >> 4, offsetZ >> 4, ChunkStatus.FULL, false);
                 if (offsetChunk != null) {
-                    ((IBlockConnectableChunk) offsetChunk).multiconnect_getChunkConnector().onBlockChange(offsetPos, offsetChunk.getBlockState(offsetPos).getBlock(), false);
+                    ChunkConnector offsetConnector = ((IBlockConnectableChunk) offsetChunk).multiconnect_getChunkConnector();
+                    if (offsetConnector != null) {
+                        BlockPos.Mutable offsetPos = offsetConnector.mutablePos.set(offsetX, y + dir.getOffsetY(), offsetZ);
+                        offsetConnector.onBlockChange(offsetPos, offsetChunk.getBlockState(offsetPos).getBlock(), false);
+                    }
                 }
             }
         }
@@ -129,33 +161,19 @@ public class ChunkConnector {
             return connector.fix(worldView, pos, newBlock);
         }
 
-        boolean needsNeighbors = connector.needsNeighbors(newBlock);
-        if (needsNeighbors) {
-            boolean allChunksLoaded = true;
-            for (Direction offset : dir.getDirections()) {
-                int chunkX = chunk.getPos().x + offset.getOffsetX();
-                int chunkZ = chunk.getPos().z + offset.getOffsetZ();
-                if (chunk.getWorld().getChunk(chunkX, chunkZ, ChunkStatus.FULL, false) == null) {
-                    allChunksLoaded = false;
-                    break;
-                }
-            }
-            if (allChunksLoaded) {
-                needsNeighbors = false;
-            }
-        }
+        boolean needsNeighbors = connector.needsNeighbors(newBlock) && !areNeighborsLoaded(dir);
 
         if (!needsNeighbors) {
-            IntSet set = blocksNeedingUpdate.get(dir);
-            if (set != null) {
-                set.remove(packLocalPos(pos));
-                if (set.isEmpty()) {
+            BitSet edge = blocksNeedingUpdate.get(dir);
+            if (edge != null) {
+                edge.clear(packEdgePos(worldView.getMinY(), dir, pos));
+                if (edge.isEmpty()) {
                     blocksNeedingUpdate.remove(dir);
                 }
             }
             return connector.fix(worldView, pos, newBlock);
         } else {
-            blocksNeedingUpdate.computeIfAbsent(dir, k -> new IntOpenHashSet()).add(packLocalPos(pos));
+            blocksNeedingUpdate.computeIfAbsent(dir, k -> new BitSet(16 * (worldView.getMaxY() - worldView.getMinY() + 1))).set(packEdgePos(worldView.getMinY(), dir, pos));
             return false;
         }
     }
@@ -21,6 +21,12 @@ public interface IBlockConnectionsBlockView {
     int getMinY();
     int getMaxY();
 
+    /**
+     * The protocol of the connection the blocks are from, for connectors which behave differently within the protocol
+     * range they are registered for
+     */
+    int getProtocolVersion();
+
     static <T> T withNullWorld(Block block, T def, Supplier<T> supplier) {
         try {
             return supplier.get();
@@ -0,0 +1,10 @@
+package net.earthcomputer.multiconnect.protocols.generic.blockconnections;
+
+/**
+ * A view of the blocks in a chunk by raw block state ID, for connectors which don't need to go through block states.
+ * The x and z coordinates must be within the chunk.
+ */
+public interface IRawBlockConnectionsBlockView {
+    int getBlockStateId(int x, int y, int z);
+    void setBlockStateId(int x, int y, int z, int stateId);
+}
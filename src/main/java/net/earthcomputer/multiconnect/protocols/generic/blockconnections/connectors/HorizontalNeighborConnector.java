@@ -1,17 +1,29 @@
 package net.earthcomputer.multiconnect.protocols.generic.blockconnections.connectors;
 
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.state.property.Properties;
 import net.minecraft.util.math.Direction;
 
-public class HorizontalNeighborConnector extends SimpleNeighborConnector {
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+public class HorizontalNeighborConnector extends SimpleNeighborConnector implements IRawBlockConnector {
+    // the order of the bits in the neighbor mask of the raw function
+    private static final Direction[] DIRECTIONS = {Direction.NORTH, Direction.SOUTH, Direction.WEST, Direction.EAST};
+
+    private final IConnectionPredicate predicate;
+
     public HorizontalNeighborConnector(Block appliedBlock, IConnectionPredicate predicate) {
         super(appliedBlock, createConnectorFunction(predicate));
+        this.predicate = predicate;
     }
 
     public HorizontalNeighborConnector(IConnectionPredicate predicate, Block... appliedBlocks) {
         super(createConnectorFunction(predicate), appliedBlocks);
+        this.predicate = predicate;
     }
 
     private static IConnectorFunction createConnectorFunction(IConnectionPredicate predicate) {
@@ -28,6 +40,73 @@ public class HorizontalNeighborConnector extends SimpleNeighborConnector {
         };
     }
 
+    @Override
+    public IRawConnectorFunction createRawFunction() {
+        int numStates = Block.STATE_IDS.size();
+        Int2IntOpenHashMap stateIndexes = new Int2IntOpenHashMap();
+        stateIndexes.defaultReturnValue(-1);
+        List<BitSet[]> stateConnections = new ArrayList<>();
+        List<int[]> stateTransitions = new ArrayList<>();
+
+        for (Block block : getAppliedBlocks()) {
+            // the neighbor states which this block connects to in each direction
+            BlockState defaultState = block.getDefaultState();
+            BitSet[] connections = new BitSet[DIRECTIONS.length];
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                connections[dir] = new BitSet(numStates);
+                for (int otherStateId = 0; otherStateId < numStates; otherStateId++) {
+                    BlockState otherState = Block.getStateFromRawId(otherStateId);
+                    if (otherState != null && predicate.canConnect(defaultState, otherState, DIRECTIONS[dir])) {
+                        connections[dir].set(otherStateId);
+                    }
+                }
+            }
+
+            // the state each state of this block becomes for each neighbor mask
+            for (BlockState state : block.getStateManager().getStates()) {
+                int[] transitions = new int[1 << DIRECTIONS.length];
+                for (int mask = 0; mask < transitions.length; mask++) {
+                    transitions[mask] = Block.getRawIdFromState(state
+                            .with(Properties.NORTH, (mask & 1) != 0)
+                            .with(Properties.SOUTH, (mask & 2) != 0)
+                            .with(Properties.WEST, (mask & 4) != 0)
+                            .with(Properties.EAST, (mask & 8) != 0));
+                }
+                stateIndexes.put(Block.getRawIdFromState(state), stateConnections.size());
+                stateConnections.add(connections);
+                stateTransitions.add(transitions);
+            }
+        }
+
+        BitSet[][] connectionsByIndex = stateConnections.toArray(new BitSet[0][]);
+        int[][] transitionsByIndex = stateTransitions.toArray(new int[0][]);
+        return (world, x, y, z, stateId) -> {
+            int index = stateIndexes.get(stateId);
+            if (index == -1) {
+                return;
+            }
+            BitSet[] connections = connectionsByIndex[index];
+            int mask = 0;
+            if (connections[0].get(world.getBlockStateId(x, y, z - 1))) {
+                mask |= 1;
+            }
+            if (connections[1].get(world.getBlockStateId(x, y, z + 1))) {
+                mask |= 2;
+            }
+            if (connections[2].get(world.getBlockStateId(x - 1, y, z))) {
+                mask |= 4;
+            }
+            if (connections[3].get(world.getBlockStateId(x + 1, y, z))) {
+                mask |= 8;
+            }
+            world.setBlockStateId(x, y, z, transitionsByIndex[index][mask]);
+        };
+    }
+
+    /**
+     * Decides whether a block connects to its neighbor. The raw function evaluates it once per block and neighbor state
+     * up front, so it must only depend on the block of {@code thisState} and not on its properties.
+     */
     @FunctionalInterface
     public interface IConnectionPredicate {
         boolean canConnect(BlockState thisState, BlockState otherState, Direction dir);
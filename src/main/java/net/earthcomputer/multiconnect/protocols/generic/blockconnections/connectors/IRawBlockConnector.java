@@ -0,0 +1,14 @@
+package net.earthcomputer.multiconnect.protocols.generic.blockconnections.connectors;
+
+import net.earthcomputer.multiconnect.api.ThreadSafe;
+
+/**
+ * A connector which can also fix blocks by raw block state ID, using tables computed up front rather than block
+ * states. Raw IDs differ between protocols, while a connector is shared by all the protocols it is registered for, so
+ * the tables are created for the current protocol by {@link #createRawFunction()} whenever a
+ * {@link net.earthcomputer.multiconnect.protocols.generic.blockconnections.BlockConnector} is built.
+ */
+public interface IRawBlockConnector extends IBlockConnector {
+    @ThreadSafe
+    IRawConnectorFunction createRawFunction();
+}
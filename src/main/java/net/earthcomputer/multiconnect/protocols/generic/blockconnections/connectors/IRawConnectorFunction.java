@@ -0,0 +1,10 @@
+package net.earthcomputer.multiconnect.protocols.generic.blockconnections.connectors;
+
+import net.earthcomputer.multiconnect.api.ThreadSafe;
+import net.earthcomputer.multiconnect.protocols.generic.blockconnections.IRawBlockConnectionsBlockView;
+
+@FunctionalInterface
+public interface IRawConnectorFunction {
+    @ThreadSafe
+    void fix(IRawBlockConnectionsBlockView world, int x, int y, int z, int stateId);
+}
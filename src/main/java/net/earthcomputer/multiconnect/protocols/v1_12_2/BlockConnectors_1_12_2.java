@@ -256,7 +256,7 @@ public class BlockConnectors_1_12_2 {
                     Boolean east = paneBlock.connectsTo(eastState, IBlockConnectionsBlockView.withNullWorld(eastState.getBlock(), false, () -> eastState.isSideSolidFullSquare(null, null, Direction.WEST)));
                     newState = newState.with(Properties.EAST, east);
 
-                    if (ConnectionInfo.protocolVersion <= Protocols.V1_8) {
+                    if (world.getProtocolVersion() <= Protocols.V1_8) {
                         if (!north && !south && !west && !east) {
                             newState = newState.with(Properties.NORTH, true).with(Properties.SOUTH, true).with(Properties.WEST, true).with(Properties.EAST, true);
                         }
@@ -0,0 +1,223 @@
+package net.earthcomputer.multiconnect.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadWritePacketExecutorTest {
+    private static final Class<?>[] NONE = new Class<?>[0];
+    private static final Class<?>[] DATA_A = {DataA.class};
+    private static final Class<?>[] DATA_B = {DataB.class};
+
+    private Channel channel;
+    private ReadWritePacketExecutor executor;
+
+    @BeforeEach
+    public void setUp() {
+        channel = new EmbeddedChannel();
+        // serverbound and not heavy only, so every translation goes to the thread pool and the channel is never paused
+        executor = new ReadWritePacketExecutor(false, false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+        executor.awaitTermination(System.nanoTime()).join();
+        channel.close();
+    }
+
+    @Test
+    public void testReadWriteExclusion() throws InterruptedException {
+        int numTasks = 200;
+        AtomicInteger readers = new AtomicInteger();
+        AtomicInteger writers = new AtomicInteger();
+        AtomicBoolean violated = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(numTasks);
+        Random rand = new Random(0);
+
+        for (int i = 0; i < numTasks; i++) {
+            boolean write = rand.nextInt(4) == 0;
+            submit(write ? NONE : DATA_A, write ? DATA_A : NONE, () -> {
+                if (write) {
+                    if (writers.incrementAndGet() != 1 || readers.get() != 0) {
+                        violated.set(true);
+                    }
+                    sleepMicros(200);
+                    writers.decrementAndGet();
+                } else {
+                    readers.incrementAndGet();
+                    if (writers.get() != 0) {
+                        violated.set(true);
+                    }
+                    sleepMicros(200);
+                    readers.decrementAndGet();
+                }
+            }, done::countDown);
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS), "Translations did not finish");
+        assertFalse(violated.get(), "A write overlapped with another access to the same dependency");
+    }
+
+    @Test
+    public void testDependentTranslationsRunInSubmissionOrder() throws InterruptedException {
+        int numTasks = 200;
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(numTasks);
+        Random rand = new Random(0);
+
+        for (int i = 0; i < numTasks; i++) {
+            int index = i;
+            int sleep = rand.nextInt(100);
+            // alternate between reading and writing, so that readers can't run ahead of the writers before them
+            boolean write = i % 3 == 0;
+            submit(write ? NONE : DATA_A, write ? DATA_A : NONE, () -> {
+                sleepMicros(sleep);
+                if (write) {
+                    order.add(index);
+                }
+            }, done::countDown);
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS), "Translations did not finish");
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < numTasks; i += 3) {
+            expected.add(i);
+        }
+        assertEquals(expected, order);
+    }
+
+    @Test
+    public void testDeliveryInSubmissionOrder() throws InterruptedException {
+        int numTasks = 200;
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(numTasks);
+        Random rand = new Random(0);
+
+        for (int i = 0; i < numTasks; i++) {
+            int index = i;
+            int sleep = rand.nextInt(500);
+            // no dependencies, so the translations can finish in any order, but must still be delivered in order
+            submit(NONE, NONE, () -> sleepMicros(sleep), () -> {
+                delivered.add(index);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS), "Translations did not finish");
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < numTasks; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, delivered);
+    }
+
+    @Test
+    public void testWaitsForAllDependencies() throws InterruptedException {
+        testWaitsForAllDependencies(true);
+        testWaitsForAllDependencies(false);
+    }
+
+    private void testWaitsForAllDependencies(boolean releaseAFirst) throws InterruptedException {
+        CountDownLatch releaseA = new CountDownLatch(1);
+        CountDownLatch releaseB = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        AtomicBoolean ranDependent = new AtomicBoolean();
+
+        submit(NONE, DATA_A, () -> awaitUninterruptibly(releaseA), done::countDown);
+        submit(NONE, DATA_B, () -> awaitUninterruptibly(releaseB), done::countDown);
+        // is granted one of its dependencies by each of the translations above
+        submit(DATA_A, DATA_B, () -> ranDependent.set(true), done::countDown);
+
+        (releaseAFirst ? releaseA : releaseB).countDown();
+        Thread.sleep(100);
+        assertFalse(ranDependent.get(), "Ran before all dependencies were granted");
+
+        (releaseAFirst ? releaseB : releaseA).countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS), "Translations did not finish");
+        assertTrue(ranDependent.get());
+    }
+
+    @Test
+    public void testShutdownWithQueuedTranslations() throws InterruptedException {
+        int numQueued = 50;
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger translated = new AtomicInteger();
+        AtomicInteger deliveredCount = new AtomicInteger();
+        List<ByteBuf> inputs = new ArrayList<>();
+
+        inputs.add(submit(NONE, DATA_A, () -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+        }, deliveredCount::incrementAndGet));
+        assertTrue(started.await(10, TimeUnit.SECONDS), "Translation did not start");
+        for (int i = 0; i < numQueued; i++) {
+            // the writes queue on the lock held by the blocked translation, the reads behind them
+            boolean write = i % 2 == 0;
+            inputs.add(submit(write ? NONE : DATA_A, write ? DATA_A : NONE, translated::incrementAndGet, deliveredCount::incrementAndGet));
+        }
+
+        executor.shutdown();
+        release.countDown();
+        executor.awaitTermination(System.nanoTime()).join();
+
+        assertEquals(0, translated.get(), "Queued translations ran after shutdown");
+        assertEquals(0, deliveredCount.get(), "Translations were delivered after shutdown");
+        for (ByteBuf input : inputs) {
+            assertEquals(0, input.refCnt(), "Input of a discarded translation was not released");
+        }
+
+        // translations submitted after shutdown are discarded straight away
+        ByteBuf lateInput = submit(NONE, NONE, translated::incrementAndGet, deliveredCount::incrementAndGet);
+        assertEquals(0, lateInput.refCnt());
+        assertEquals(0, translated.get());
+    }
+
+    private ByteBuf submit(Class<?>[] readDependencies, Class<?>[] writeDependencies, Runnable translation, Runnable onTranslated) {
+        ByteBuf input = Unpooled.buffer(1);
+        executor.submit(channel, input, readDependencies, writeDependencies, false, false, translation, onTranslated);
+        return input;
+    }
+
+    private static void sleepMicros(int micros) {
+        try {
+            Thread.sleep(micros / 1000, (micros % 1000) * 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class DataA {}
+    private static final class DataB {}
+}
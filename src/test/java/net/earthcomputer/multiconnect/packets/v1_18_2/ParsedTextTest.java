@@ -0,0 +1,154 @@
+package net.earthcomputer.multiconnect.packets.v1_18_2;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParsedTextTest {
+    private static final Gson GSON = new Gson();
+
+    @Test
+    public void testSimpleChat() {
+        assertMatchesGson("{\"translate\":\"chat.type.text\",\"with\":[{\"text\":\"Steve\"},\"hello\"]}");
+    }
+
+    @Test
+    public void testWhitespace() {
+        assertMatchesGson(" {\n\t\"translate\" : \"chat.type.text\" ,\r\n \"with\" : [ \"a\" , { \"text\" : \"b\" } ] } ");
+    }
+
+    @Test
+    public void testNoTranslate() {
+        assertMatchesGson("{\"text\":\"Welcome to the server!\",\"color\":\"gold\"}");
+        assertMatchesGson("{}");
+    }
+
+    @Test
+    public void testNotAnObject() {
+        assertNull(ParsedText.parse("\"hello\"").getTranslate());
+        assertNull(ParsedText.parse("[\"hello\"]").getTranslate());
+        assertEquals(0, ParsedText.parse("\"hello\"").getArgCount());
+    }
+
+    @Test
+    public void testEscapes() {
+        assertMatchesGson("{\"translate\":\"chat.type.\\u0074ext\",\"with\":[\"a \\\"quoted\\\" \\\\ word\",\"\\n\\t\\/\"]}");
+        assertMatchesGson("{\"tr\\u0061nslate\":\"chat.type.emote\",\"with\":[\"x\"]}");
+        assertMatchesGson("{\"text\":\"}\\\"]\",\"translate\":\"chat.type.text\",\"with\":[\"{\",\"[\"]}");
+    }
+
+    @Test
+    public void testNonStringTranslate() {
+        assertMatchesGson("{\"translate\":12,\"with\":[]}");
+        assertMatchesGson("{\"translate\":-1.5e3}");
+        assertMatchesGson("{\"translate\":true}");
+        assertMatchesGson("{\"translate\":false}");
+        assertEquals("", ParsedText.parse("{\"translate\":null}").getTranslate());
+    }
+
+    @Test
+    public void testNullWith() {
+        ParsedText parsed = ParsedText.parse("{\"translate\":\"chat.type.text\",\"with\":null}");
+        assertEquals("chat.type.text", parsed.getTranslate());
+        assertEquals(0, parsed.getArgCount());
+    }
+
+    @Test
+    public void testNestedArgs() {
+        assertMatchesGson("{\"translate\":\"chat.type.text\",\"with\":[{\"text\":\"Steve\",\"hoverEvent\":{\"action\":\"show_entity\","
+                + "\"contents\":{\"id\":\"069a79f4-44e9-4726-a5be-fca90e38aaf5\",\"name\":{\"text\":\"Steve\"}}},\"extra\":[[1,2,[3]],{}]},"
+                + "{\"translate\":\"inner\",\"with\":[[],{\"a\":[null,true,false,0,-0.5,1E+2]}]}]}");
+    }
+
+    @Test
+    public void testDeeplyNestedArg() {
+        String json = "{\"translate\":\"chat.type.text\",\"with\":[\"a\"," + "[".repeat(100_000) + "]".repeat(100_000) + "]}";
+        ParsedText parsed = ParsedText.parse(json);
+        assertEquals("chat.type.text", parsed.getTranslate());
+        assertEquals(2, parsed.getArgCount());
+        assertEquals("[".repeat(100_000) + "]".repeat(100_000), parsed.getArg(1));
+    }
+
+    @Test
+    public void testLenient() {
+        assertMatchesLenientGson("{translate:\"chat.type.text\"}");
+        assertMatchesLenientGson("{translate:chat.type.text,with:[{text:Steve},'hello']}");
+        assertMatchesLenientGson("{\"translate\":\"chat.type.text\",\"with\":[\"a\",]}");
+        assertMatchesLenientGson("{\"translate\":01}");
+        assertMatchesLenientGson("{\"translate\":tru}");
+        assertMatchesLenientGson("{'translate':'chat.type.emote';'with':['a';{\"text\":\"b\"}]}");
+
+        ParsedText parsed = ParsedText.parse("{translate:\"chat.type.text\",with:[{text:Steve},hello]}");
+        assertEquals("chat.type.text", parsed.getTranslate());
+        assertEquals(2, parsed.getArgCount());
+        assertEquals("{\"text\":\"Steve\"}", parsed.getArg(0));
+        assertEquals("\"hello\"", parsed.getArg(1));
+    }
+
+    @Test
+    public void testMalformed() {
+        assertMalformed("{\"translate\":\"chat.type.text\"");
+        assertMalformed("{\"translate\":\"chat.type.text\",}");
+        assertMalformed("{\"translate\":\"chat.type.text\",\"with\":[{\"text\":\"a\"]}");
+        assertMalformed("{\"translate\":\"chat.type.text\",\"with\":[{\"text\" \"a\"}]}");
+        assertMalformed("{\"translate\":\"unterminated}");
+        assertMalformed("{\"translate\":\"chat.type.text\",\"with\":\"a\"}");
+        assertMalformed("{\"translate\":{\"a\":1}}");
+        assertMalformed("{\"translate\":\"chat.type.text\",\"with\":[" + "[".repeat(100_000) + "]}");
+    }
+
+    private static void assertMatchesGson(String json) {
+        assertTrue(isValid(json, false), "Gson rejected " + json);
+        assertMatchesLenientGson(json);
+    }
+
+    private static void assertMatchesLenientGson(String json) {
+        JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
+        ParsedText parsed = ParsedText.parse(json);
+
+        JsonElement translate = obj.get("translate");
+        assertEquals(translate == null ? "" : translate.getAsString(), parsed.getTranslate());
+
+        JsonArray with = obj.has("with") ? obj.getAsJsonArray("with") : new JsonArray();
+        assertEquals(with.size(), parsed.getArgCount());
+        for (int i = 0; i < with.size(); i++) {
+            assertEquals(with.get(i), JsonParser.parseString(parsed.getArg(i)), "argument " + i);
+        }
+    }
+
+    private static void assertMalformed(String json) {
+        assertFalse(isValid(json, true), "Gson accepted " + json);
+        ParsedText parsed = ParsedText.parse(json);
+        assertNull(parsed.getTranslate());
+        assertEquals(0, parsed.getArgCount());
+    }
+
+    private static boolean isValid(String json, boolean lenient) {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(lenient);
+        try {
+            JsonElement element = GSON.getAdapter(JsonElement.class).read(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                return false;
+            }
+            // the scanner only accepts strings, numbers and booleans as translation keys, and only arrays and null as arguments
+            JsonObject obj = element.getAsJsonObject();
+            JsonElement translate = obj.get("translate");
+            JsonElement with = obj.get("with");
+            return (translate == null || translate.isJsonPrimitive() || translate.isJsonNull())
+                    && (with == null || with.isJsonArray() || with.isJsonNull());
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            return false;
+        }
+    }
+}
@@ -119,7 +119,8 @@ data class MessageVariantInfo(
     val sendableFrom: List<Int>?,
     val sendableFromLatest: Boolean,
     val explicitConstructible: Boolean,
-    val tailrec: Boolean = false
+    val tailrec: Boolean = false,
+    val orderInsensitive: Boolean = false
 ) : ClassInfo() {
     fun findFieldOrNull(name: String, includeParent: Boolean = true): McField? {
         val field = fields.firstOrNull { it.name == name }
@@ -11,6 +11,7 @@ class Emitter(
     val debugMode: Boolean = false,
 ) {
     private var indent = ""
+    private val interfaces = mutableListOf<String>()
 
     val length: Int get() = text.length
 
@@ -38,12 +39,21 @@ class Emitter(
     }
 
     fun appendClassName(name: String): Emitter {
+        this.text.append(importClassName(name))
+        return this
+    }
+
+    fun addInterface(name: String): Emitter {
+        interfaces += importClassName(name)
+        return this
+    }
+
+    private fun importClassName(name: String): String {
         val (packageName, simpleName) = splitPackageClass(name)
         if (packageName != "java.lang" && packageName != splitPackageClass(currentClass).first) {
             imports += "$packageName.${simpleName.substringBefore('.')}"
         }
-        this.text.append(simpleName)
-        return this
+        return simpleName
     }
 
     fun indent(): Emitter {
@@ -85,7 +95,11 @@ class Emitter(
             append("\n")
         }
         append("@SuppressWarnings(\"all\")\n")
-        append("public class $simpleName {\n")
+        append("public class $simpleName")
+        if (interfaces.isNotEmpty()) {
+            append(interfaces.joinToString(", ", " implements "))
+        }
+        append(" {\n")
         for (member in members.values) {
             append(member.text).append("\n\n")
         }
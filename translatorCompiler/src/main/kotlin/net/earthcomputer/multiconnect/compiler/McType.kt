@@ -45,9 +45,11 @@ object CommonClassNames {
     const val IDENTIFIER = "net.minecraft.util.Identifier"
     const val NETWORK_HANDLER = "net.minecraft.client.network.ClientPlayNetworkHandler"
     const val PACKET_INTRINSICS = "net.earthcomputer.multiconnect.impl.PacketIntrinsics"
+    const val GENERATED_PROTOCOL = "net.earthcomputer.multiconnect.impl.GeneratedProtocol"
     const val PACKET_SENDER = "net.earthcomputer.multiconnect.impl.PacketIntrinsics.PacketSender"
     const val RAW_PACKET_SENDER = "net.earthcomputer.multiconnect.impl.PacketIntrinsics.RawPacketSender"
     const val START_SEND_PACKET_RESULT = "net.earthcomputer.multiconnect.impl.PacketIntrinsics.StartSendPacketResult"
+    const val SPACKET_CHUNK_DATA = "net.earthcomputer.multiconnect.packets.SPacketChunkData"
     const val MULTICONNECT_DFU = "net.earthcomputer.multiconnect.datafix.MulticonnectDFU"
     const val DELAYED_PACKET_SENDER = "net.earthcomputer.multiconnect.impl.DelayedPacketSender"
     const val TYPED_MAP = "net.earthcomputer.multiconnect.protocols.generic.TypedMap"
@@ -80,6 +80,65 @@ internal fun ProtocolCompiler.generateByteBufHandler(packet: MessageVariantInfo,
     return McNode(StmtListOp, nodes)
 }
 
+/**
+ * Generates a handler which only rewrites the packet ID and forwards the rest of the packet untouched, or returns null
+ * if the packet's wire format or registries may differ anywhere between this protocol and the latest protocol.
+ */
+internal fun ProtocolCompiler.generatePassthroughHandler(packet: MessageVariantInfo, clientbound: Boolean): McNode? {
+    val group = getClassInfo(packet.variantOf ?: packet.className) as? MessageInfo
+
+    val protocolsSubset = protocols.takeWhile { it.id >= protocolId }
+    for (protocol in protocolsSubset) {
+        if (group == null) {
+            if (packet.minVersion != null && protocol.id < packet.minVersion) {
+                return null
+            }
+            if (packet.maxVersion != null && protocol.id > packet.maxVersion) {
+                return null
+            }
+        } else if (group.getVariant(protocol.id)?.className != packet.className) {
+            return null
+        }
+    }
+    for (index in protocolsSubset.indices.drop(1)) {
+        if (packet.needsTranslation(protocolsSubset[index - 1].id, protocolsSubset[index].id)) {
+            return null
+        }
+    }
+
+    if (packet.handler != null || packet.partialHandlers.isNotEmpty()) {
+        return null
+    }
+    if (packet.polymorphic != null && polymorphicChildren[packet.className].orEmpty().any {
+        val childInfo = getMessageVariantInfo(it)
+        childInfo.handler != null || childInfo.partialHandlers.isNotEmpty()
+    }) {
+        return null
+    }
+    if (needsTranslating(packet, clientbound)) {
+        return null
+    }
+
+    val targetProtocol = if (clientbound) protocols[0].id else protocolId
+    val newPacketId = readCsv<PacketType>(
+        FileLocations.dataDir
+            .resolve(protocolNamesById[targetProtocol]!!)
+            .resolve(if (clientbound) "spackets.csv" else "cpackets.csv")
+    ).firstOrNull { it.clazz == packet.className }?.id ?: return null
+
+    return McNode(StmtListOp,
+        McNode(PopStmtOp,
+            McNode(FunctionCallOp(CommonClassNames.LIST, "add", listOf(McType.BYTE_BUF.listOf(), McType.BYTE_BUF), McType.VOID, true, isStatic = false),
+                McNode(LoadVariableOp(VariableId.immediate("outBufs"), McType.BYTE_BUF.listOf())),
+                McNode(FunctionCallOp(CommonClassNames.PACKET_INTRINSICS, "rewritePacketId", listOf(McType.BYTE_BUF, McType.INT), McType.BYTE_BUF, true),
+                    McNode(LoadVariableOp(VariableId.immediate("buf"), McType.BYTE_BUF)),
+                    McNode(CstIntOp(newPacketId))
+                )
+            )
+        )
+    )
+}
+
 internal fun ProtocolCompiler.generateExplicitSenderClientRegistries(packet: MessageVariantInfo, protocolId: Int, clientbound: Boolean): McNode {
     val group = getClassInfo(packet.variantOf ?: packet.className) as? MessageInfo
 
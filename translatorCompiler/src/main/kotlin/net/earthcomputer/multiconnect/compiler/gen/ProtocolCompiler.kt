@@ -5,6 +5,7 @@ import net.earthcomputer.multiconnect.ap.Types
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.BITSET
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.BYTE_BUF
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.CLASS
+import net.earthcomputer.multiconnect.compiler.CommonClassNames.GENERATED_PROTOCOL
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.IDENTIFIER
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.INT_UNARY_OPERATOR
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.LIST
@@ -18,6 +19,7 @@ import net.earthcomputer.multiconnect.compiler.CommonClassNames.RAW_PACKET_SENDE
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.REGISTRY
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.REGISTRY_KEY
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.SET
+import net.earthcomputer.multiconnect.compiler.CommonClassNames.SPACKET_CHUNK_DATA
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.START_SEND_PACKET_RESULT
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.SUPPLIER
 import net.earthcomputer.multiconnect.compiler.CommonClassNames.TYPED_MAP
@@ -35,6 +37,7 @@ import net.earthcomputer.multiconnect.compiler.byName
 import net.earthcomputer.multiconnect.compiler.encodeRLEBitSet
 import net.earthcomputer.multiconnect.compiler.explicitConstructibleMessages
 import net.earthcomputer.multiconnect.compiler.getMessageVariantInfo
+import net.earthcomputer.multiconnect.compiler.node.CstBoolOp
 import net.earthcomputer.multiconnect.compiler.node.CstStringOp
 import net.earthcomputer.multiconnect.compiler.node.FunctionCallOp
 import net.earthcomputer.multiconnect.compiler.node.LoadFieldOp
@@ -74,6 +77,7 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
 
     fun compile() {
         val emitter = Emitter(className, TreeSet(), TreeMap(), StringBuilder())
+        emitter.addInterface(GENERATED_PROTOCOL)
 
         // These need to be first because they track global data dependencies
         emitPacketTranslators(emitter, "translateSPacket", dataDir.resolve("spackets.csv"), true)
@@ -90,8 +94,8 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
         emitRemapFunc(emitter, clientbound = true, identifier = true)
         emitRemapFunc(emitter, clientbound = false, identifier = true)
 
-        createIntRemapFunc(Registries.BLOCK_STATE, true)
-        createIntRemapFunc(Registries.BLOCK_STATE, false)
+        emitBlockStateRemapFunc(emitter, "serverBlockStateIdToClient", clientbound = true)
+        emitBlockStateRemapFunc(emitter, "clientBlockStateIdToServer", clientbound = false)
 
         val emittedMembers = mutableSetOf<String>()
         while (cacheMembers.size != emittedMembers.size) {
@@ -136,7 +140,7 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
 
     private fun emitPacketTranslators(emitter: Emitter, functionName: String, packetsFile: File, clientbound: Boolean) {
         val function = emitter.addMember(functionName) ?: return
-        function.append("public static ").appendClassName(START_SEND_PACKET_RESULT).append(" ").append(functionName)
+        function.append("@Override").appendNewLine().append("public ").appendClassName(START_SEND_PACKET_RESULT).append(" ").append(functionName)
             .append("(").appendClassName(BYTE_BUF).append(" buf) {").indent().appendNewLine()
         val packets = TreeMap<Int, McNode>()
 
@@ -150,13 +154,19 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
             }
             val packetFunctionName = "translate${clazz.substringAfterLast('.')}"
             if (emitPacketTranslator(emitter, packetFunctionName, clazz, clientbound)) {
-                packets[id] = McNode(NewOp(START_SEND_PACKET_RESULT, listOf(classType.arrayOf(), classType.arrayOf(), senderType)),
+                // chunk data translation is expensive and independent of other chunks, so is worth moving off the event loop
+                val heavy = (getMessageVariantInfo(clazz).variantOf ?: clazz) == SPACKET_CHUNK_DATA
+                // a packet which touches no shared state can't be affected by the packets around it
+                val unordered = getMessageVariantInfo(clazz).orderInsensitive && readDependencies.isEmpty() && writeDependencies.isEmpty()
+                packets[id] = McNode(NewOp(START_SEND_PACKET_RESULT, listOf(classType.arrayOf(), classType.arrayOf(), senderType, McType.BOOLEAN, McType.BOOLEAN)),
                     McNode(LoadFieldOp(McType.DeclaredType(className), makeDependencyField(readDependencies), classType.arrayOf(), isStatic = true)),
                     McNode(LoadFieldOp(McType.DeclaredType(className), makeDependencyField(writeDependencies), classType.arrayOf(), isStatic = true)),
                     McNode(LoadVariableOp(
                         VariableId.immediate("${splitPackageClass(className).second}::$packetFunctionName"),
                         senderType
-                    ))
+                    )),
+                    McNode(CstBoolOp(heavy)),
+                    McNode(CstBoolOp(unordered))
                 )
             }
             readDependencies.clear()
@@ -221,7 +231,9 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
             .appendClassName(NETWORK_HANDLER).append(" networkHandler, ")
             .appendClassName(MAP).append("<").appendClassName(CLASS).append("<?>, ").appendClassName(OBJECT).append("> globalData, ")
             .appendClassName(TYPED_MAP).append(" userData) {").indent().appendNewLine()
-        generateByteBufHandler(messageVariantInfo, clientbound).optimize().emit(function, Precedence.COMMA)
+        val handler = generatePassthroughHandler(messageVariantInfo, clientbound)
+            ?: generateByteBufHandler(messageVariantInfo, clientbound)
+        handler.optimize().emit(function, Precedence.COMMA)
         function.dedent().appendNewLine().append("}")
         return true
     }
@@ -301,7 +313,7 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
         }
 
         val function = emitter.addMember(functionName) ?: return
-        function.append("public static void ").append(functionName).append("(")
+        function.append("@Override").appendNewLine().append("public void ").append(functionName).append("(")
             .appendClassName(OBJECT).append(" packet, ")
         if (!clientbound) {
             function.append("int fromProtocol, ")
@@ -337,7 +349,7 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
 
     private fun emitDoesServerKnow(emitter: Emitter) {
         val function = emitter.addMember("doesServerKnow") ?: return
-        function.append("public static boolean doesServerKnow(")
+        function.append("@Override").appendNewLine().append("public boolean doesServerKnow(")
             .appendClassName(REGISTRY_KEY).append("<? extends ").appendClassName(REGISTRY)
             .append("<?>> registry, int newId) {").indent().appendNewLine()
             .appendClassName(BITSET).append(" bitset = DOES_SERVER_KNOW.get(registry);").appendNewLine()
@@ -383,7 +395,7 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
 
     private fun emitDoesServerKnowMulticonnect(emitter: Emitter) {
         val function = emitter.addMember("doesServerKnowMulticonnect") ?: return
-        function.append("public static boolean doesServerKnowMulticonnect(")
+        function.append("@Override").appendNewLine().append("public boolean doesServerKnowMulticonnect(")
             .appendClassName(REGISTRY_KEY).append("<?> value) {").indent().appendNewLine()
             .append("return DOES_SERVER_KNOW_MULTICONNECT.contains(value);").dedent().appendNewLine()
             .append("}")
@@ -437,7 +449,7 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
         }
 
         val function = emitter.addMember(methodName) ?: return
-        function.append("public static ")
+        function.append("@Override").appendNewLine().append("public ")
         emitType(function)
         function.append(" ").append(methodName).append("(")
             .appendClassName(REGISTRY_KEY).append("<? extends ").appendClassName(REGISTRY)
@@ -485,6 +497,14 @@ class ProtocolCompiler(internal val protocolName: String, internal val protocolI
         field.dedent().appendNewLine().append(");")
     }
 
+    private fun emitBlockStateRemapFunc(emitter: Emitter, methodName: String, clientbound: Boolean) {
+        val function = emitter.addMember(methodName) ?: return
+        function.append("@Override").appendNewLine()
+            .append("public int ").append(methodName).append("(int value) {").indent().appendNewLine()
+            .append("return ").append(createIntRemapFunc(Registries.BLOCK_STATE, clientbound)).append("(value);").dedent().appendNewLine()
+            .append("}")
+    }
+
     fun compileDefaultConstructors() {
         val emitter = Emitter("net.earthcomputer.multiconnect.generated.DefaultConstructors", TreeSet(), TreeMap(), StringBuilder())
 
@@ -100,7 +100,7 @@ private fun ProtocolCompiler.needsTranslating(field: FieldType, clientbound: Boo
     return needsTranslating(messageInfo, clientbound)
 }
 
-private fun ProtocolCompiler.needsTranslating(messageInfo: MessageVariantInfo, clientbound: Boolean): Boolean {
+internal fun ProtocolCompiler.needsTranslating(messageInfo: MessageVariantInfo, clientbound: Boolean): Boolean {
     if (messageInfo.polymorphicParent != null) {
         val parentInfo = getMessageVariantInfo(messageInfo.polymorphicParent)
         if (parentInfo.fields.any { needsTranslating(it.type, clientbound) }) {
@@ -392,7 +392,7 @@ internal fun ProtocolCompiler.createIntRemapFunc(registry: Registries, clientbou
         }
     }
 
-    fun buildNode(): McNode {
+    fun buildShifts(): List<Pair<Int, IntRemapValue>> {
         val oldEntries = readCsv<RegistryEntry>(dataDir.resolve("${registry.name.lowercase()}.csv"))
         val newEntries = readCsv<RegistryEntry>(latestDataDir.resolve("${registry.name.lowercase()}.csv"))
         val (fromEntries, toEntries) = if (clientbound) {
@@ -447,28 +447,75 @@ internal fun ProtocolCompiler.createIntRemapFunc(registry: Registries, clientbou
 
         shifts.sortBy { it.first }
 
-        return selectShift(shifts)
+        return shifts
     }
 
     val methodName = "remap%sInt%s".format(Locale.ROOT,
         if (clientbound) "S" else "C",
         registry.name.toCamelCase(true)
     )
+    val shifts by lazy { buildShifts() }
 
     addMember(methodName) { emitter ->
-        val access = if (registry == Registries.BLOCK_STATE) {
-            "public"
-        } else {
-            "private"
+        if (!shouldUseLookupTable(shifts)) {
+            emitter.append("private static int ").append(methodName).append("(int value) {").indent().appendNewLine()
+            selectShift(shifts).optimize().emit(emitter, Precedence.COMMA)
+            emitter.dedent().appendNewLine().append("}")
+            return@addMember
+        }
+
+        // The tree is kept for values outside the range of the table, and to compute the table itself. The table
+        // can't be computed at class init because some values are looked up from the registries.
+        val uncachedMethodName = "${methodName}Uncached"
+        val tableFieldName = "REMAP_%s_INT_%s_TABLE".format(Locale.ROOT, if (clientbound) "S" else "C", registry.name)
+        emitter.append("private static int ").append(methodName).append("(int value) {").indent().appendNewLine()
+            .append("int[] table = ").append(tableFieldName).append(";").appendNewLine()
+            .append("if (table == null) {").indent().appendNewLine()
+            .append("table = ").append(tableFieldName).append(" = ").appendClassName(PACKET_INTRINSICS)
+            .append(".makeRemapTable(").append((shifts.last().first + 1).toString()).append(", ")
+            .appendClassName(className).append("::").append(uncachedMethodName).append(");").dedent().appendNewLine()
+            .append("}").appendNewLine()
+            .append("if (value >= 0 && value < table.length) {").indent().appendNewLine()
+            .append("return table[value];").dedent().appendNewLine()
+            .append("}").appendNewLine()
+            .append("return ").append(uncachedMethodName).append("(value);").dedent().appendNewLine()
+            .append("}")
+
+        addMember(tableFieldName) { field ->
+            field.append("private static volatile int[] ").append(tableFieldName).append(";")
+        }
+        addMember(uncachedMethodName) { function ->
+            function.append("private static int ").append(uncachedMethodName).append("(int value) {").indent().appendNewLine()
+            selectShift(shifts).optimize().emit(function, Precedence.COMMA)
+            function.dedent().appendNewLine().append("}")
         }
-        emitter.append(access).append(" static int ").append(methodName).append("(int value) {").indent().appendNewLine()
-        buildNode().optimize().emit(emitter, Precedence.COMMA)
-        emitter.dedent().appendNewLine().append("}")
     }
 
     return methodName
 }
 
+/**
+ * Registries with at least this many distinct remap ranges are remapped using a lookup table rather than a binary
+ * search over the ranges.
+ */
+private const val LOOKUP_TABLE_MIN_RANGES = 32
+
+/**
+ * The minimum fraction of IDs below the maximum ID that must be present in the registry for a lookup table to be used.
+ */
+private const val LOOKUP_TABLE_MIN_DENSITY = 0.5
+
+private fun shouldUseLookupTable(shifts: List<Pair<Int, IntRemapValue>>): Boolean {
+    if (shifts.isEmpty()) {
+        return false
+    }
+    val ranges = 1 + shifts.zipWithNext().count { (a, b) -> a.second != b.second }
+    if (ranges < LOOKUP_TABLE_MIN_RANGES) {
+        return false
+    }
+    return shifts.size >= LOOKUP_TABLE_MIN_DENSITY * (shifts.last().first + 1)
+}
+
 internal fun ProtocolCompiler.createStringRemapFunc(registry: Registries, clientbound: Boolean): String {
     val identifierType = McType.DeclaredType(IDENTIFIER)
 
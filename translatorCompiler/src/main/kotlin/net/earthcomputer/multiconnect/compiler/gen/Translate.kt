@@ -67,7 +67,7 @@ private fun MessageInfo.needsTranslation(versionA: Int, versionB: Int): Boolean
     return variantA.needsTranslation(versionA, versionB)
 }
 
-private fun MessageVariantInfo.needsTranslation(versionA: Int, versionB: Int): Boolean {
+internal fun MessageVariantInfo.needsTranslation(versionA: Int, versionB: Int): Boolean {
     fun fieldNeedsTranslation(field: McField): Boolean {
         val type = field.type.realType.deepComponentType().classInfoOrNull
         if (type is MessageInfo) {